@@ -0,0 +1,58 @@
+package it.polito.oma.etp.benchmark;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+import it.polito.oma.etp.reader.InputReader;
+import it.polito.oma.etp.reader.InstanceData;
+
+/**
+ * Helper shared by all benchmarks to load the instances shipped
+ * in the res/ directory.
+ */
+public class BenchmarkInstances {
+	/**
+	 * Directory containing the instance files, relative to the directory
+	 * the benchmarks are run from (i.e., benchmarks/).
+	 * It can be overridden through the etp.res system property.
+	 */
+	public static final String RES_DIRECTORY = System.getProperty("etp.res", "../res/");
+	
+	/**
+	 * Reads the instance having the given name.
+	 * @param instanceName	instance name, without directory and extensions.
+	 * @return				the instance data.
+	 */
+	public static InstanceData load(String instanceName) {
+		return InputReader.getData(RES_DIRECTORY + instanceName);
+	}
+	
+	/**
+	 * Reads the feasible solution shipped for the given instance
+	 * (instanceXX_OMAAL_group15.sol), containing one "exam timeslot"
+	 * line for each exam, both starting from 0.
+	 * @param instance	the instance data.
+	 * @return			the timeslot of each exam.
+	 */
+	public static int[] loadSolutionSchedule(InstanceData instance) {
+		int[] schedule = new int[instance.getE()];
+		String solutionFile = instance.getInstanceName() + "_OMAAL_group15.sol";
+		
+		try(BufferedReader br = new BufferedReader(new FileReader(solutionFile))) {
+			String currentLine;
+			
+			while((currentLine = br.readLine()) != null) {
+				if(currentLine.length() == 0)
+					continue;
+				
+				String[] fields = currentLine.trim().split("\\s+");
+				schedule[Integer.parseInt(fields[0])] = Integer.parseInt(fields[1]);
+			}
+		} catch(IOException e) {
+			throw new IllegalStateException("Cannot read " + solutionFile, e);
+		}
+		
+		return schedule;
+	}
+}
@@ -0,0 +1,53 @@
+package it.polito.oma.etp.reader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import it.polito.oma.etp.benchmark.BenchmarkInstances;
+
+/**
+ * Parsing of the .stu, .exm and .slo files, compared with
+ * loading the binary snapshot of the same instance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InputReaderBenchmark {
+	@Param({"instance01", "instance04", "instance06"})
+	public String instanceName;
+	
+	private Path snapshot;
+	
+	@Setup
+	public void setup() throws IOException {
+		snapshot = Paths.get(BenchmarkInstances.RES_DIRECTORY + instanceName + InstanceCache.SNAPSHOT_EXTENSION);
+		InstanceSnapshot.write(getData(), 0, snapshot);
+	}
+	
+	@Benchmark
+	public InstanceData getData() {
+		return InputReader.getData(BenchmarkInstances.RES_DIRECTORY + instanceName);
+	}
+	
+	@Benchmark
+	public InstanceData readSnapshot() throws IOException {
+		return InstanceSnapshot.read(snapshot, 0);
+	}
+}
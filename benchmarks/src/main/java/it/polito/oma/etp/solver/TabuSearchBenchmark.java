@@ -0,0 +1,95 @@
+package it.polito.oma.etp.solver;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import it.polito.oma.etp.benchmark.BenchmarkInstances;
+import it.polito.oma.etp.reader.InstanceData;
+import it.polito.oma.etp.solver.initialization.InitializationSolution;
+import it.polito.oma.etp.solver.optimization.TabuOptimization;
+
+/**
+ * Neighborhood generation of the optimization problem, starting from the
+ * feasible solution shipped with each instance and using the same
+ * settings as the solver.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TabuSearchBenchmark {
+	@Param({"instance01", "instance04", "instance06"})
+	public String instanceName;
+	
+	/**
+	 * If true, the delta matrix mode is enabled.
+	 */
+	@Param({"false", "true"})
+	public boolean deltaMatrix;
+	
+	/**
+	 * If true, the neighborhood contains swap moves too.
+	 */
+	@Param({"false", "true"})
+	public boolean swapMoves;
+	
+	/**
+	 * Maximum number of exams moved by a Kempe chain move,
+	 * 0 if the neighborhood contains no Kempe chain moves.
+	 */
+	@Param({"0", "16"})
+	public int kempeChainMaxSize;
+	
+	private TabuSearch tabuSearch;
+	
+	@Setup(Level.Trial)
+	public void setup() {
+		InstanceData instance = BenchmarkInstances.load(instanceName);
+		
+		TabuSettings settings = new TabuSettings(
+			new Settings(false, 1, false, false, 0),
+			1,				// neighborhoodGeneratingPairsPercentage
+			true,			// considerAllTimeslots
+			deltaMatrix,	// deltaMatrix
+			1,				// neighborhoodEvaluationThreads
+			false,			// streamingNeighborSelection
+			swapMoves,		// swapMoves
+			kempeChainMaxSize,	// kempeChainMaxSize
+			20,				// tabuListInitialSize
+			true,			// dynamicTabuList
+			1,				// worseningCriterion
+			45,				// tabuListMaxSize
+			9000,			// maxNonImprovingIterationsAllowed
+			7,				// tabuListIncrementSize
+			50,				// movingAveragePeriod
+			1,				// tabuListIncrementTimeInterval
+			1				// numberOfThreads
+		);
+		
+		tabuSearch = new TabuOptimization(
+			instance,
+			new InitializationSolution(instance, BenchmarkInstances.loadSolutionSchedule(instance)),
+			settings
+		);
+	}
+	
+	@Benchmark
+	public ArrayList<Neighbor> getNeighborhood() {
+		return tabuSearch.getNeighborhood(tabuSearch.currentSolution.getPenalizingPairs());
+	}
+}
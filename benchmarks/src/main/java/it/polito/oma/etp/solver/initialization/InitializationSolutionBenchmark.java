@@ -0,0 +1,70 @@
+package it.polito.oma.etp.solver.initialization;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import it.polito.oma.etp.benchmark.BenchmarkInstances;
+import it.polito.oma.etp.reader.InstanceData;
+import it.polito.oma.etp.solver.InvalidMoveException;
+import it.polito.oma.etp.solver.Neighbor;
+import it.polito.oma.etp.solver.Solution;
+
+/**
+ * Construction of the first infeasible solution, and neighbor evaluation
+ * of the initialization problem starting from the one computed by the
+ * deterministic algorithm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InitializationSolutionBenchmark {
+	@Param({"instance01", "instance04", "instance06"})
+	public String instanceName;
+	
+	private InstanceData instance;
+	private InitializationSolution solution;
+	
+	/**
+	 * Moves visited cyclically, each one encoded as exam * Tmax + timeslot.
+	 */
+	private int move;
+	
+	@Setup(Level.Trial)
+	public void setup() {
+		instance = BenchmarkInstances.load(instanceName);
+		solution = Solution.generateInfeasibleSolution(instance, false);
+	}
+	
+	@Benchmark
+	public InitializationSolution generateInfeasibleSolution() {
+		return Solution.generateInfeasibleSolution(instance, false);
+	}
+	
+	@Benchmark
+	public InitializationSolution generateRandomInfeasibleSolution() {
+		return Solution.generateInfeasibleSolution(instance, true);
+	}
+	
+	@Benchmark
+	public Neighbor getNeighbor() throws InvalidMoveException {
+		int Tmax = instance.getTmax();
+		move = (move + 1) % (instance.getE() * Tmax);
+		
+		return solution.getNeighbor(move / Tmax, move % Tmax);
+	}
+}
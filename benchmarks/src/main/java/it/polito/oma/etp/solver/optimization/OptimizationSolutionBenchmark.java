@@ -0,0 +1,152 @@
+package it.polito.oma.etp.solver.optimization;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import it.polito.oma.etp.benchmark.BenchmarkInstances;
+import it.polito.oma.etp.reader.InstanceData;
+import it.polito.oma.etp.solver.InvalidMoveException;
+import it.polito.oma.etp.solver.Neighbor;
+import it.polito.oma.etp.solver.initialization.InitializationSolution;
+
+/**
+ * Neighbor evaluation, moves and fitness computation of the optimization
+ * problem, starting from the feasible solution shipped with each instance.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OptimizationSolutionBenchmark {
+	@Param({"instance01", "instance04", "instance06"})
+	public String instanceName;
+	
+	/**
+	 * If true, the delta matrix mode is enabled.
+	 */
+	@Param({"false", "true"})
+	public boolean deltaMatrix;
+	
+	private InstanceData instance;
+	private OptimizationSolution solution;
+	
+	/**
+	 * Moves visited cyclically by getNeighbor(), each one encoded
+	 * as exam * Tmax + timeslot.
+	 */
+	private int move;
+	
+	/**
+	 * Feasible moves visited cyclically by move(), with the same encoding.
+	 */
+	private int[] feasibleMoves;
+	private int feasibleMove;
+	
+	@Setup(Level.Trial)
+	public void setup() {
+		instance = BenchmarkInstances.load(instanceName);
+		solution = new OptimizationSolution(
+			new InitializationSolution(instance, BenchmarkInstances.loadSolutionSchedule(instance))
+		);
+		
+		if(!solution.isFeasible())
+			throw new IllegalStateException("The solution shipped for " + instanceName + " is not feasible");
+		
+		if(deltaMatrix)
+			solution.initializeDeltaMatrix();
+		
+		// Moves that are feasible starting from the shipped solution
+		int E = instance.getE();
+		int Tmax = instance.getTmax();
+		int[] moves = new int[E * Tmax];
+		int feasibleMovesNumber = 0;
+		
+		for(int exam = 0; exam < E; ++exam)
+			for(int t = 0; t < Tmax; ++t)
+				if(t != solution.getTimeslot(exam) && solution.isFeasibleMove(exam, t))
+					moves[feasibleMovesNumber++] = exam * Tmax + t;
+		
+		feasibleMoves = java.util.Arrays.copyOf(moves, feasibleMovesNumber);
+	}
+	
+	/**
+	 * Evaluates every (exam, timeslot) move in turn, infeasible ones included.
+	 */
+	@Benchmark
+	public Neighbor getNeighbor() {
+		int Tmax = instance.getTmax();
+		move = (move + 1) % (instance.getE() * Tmax);
+		
+		try {
+			return solution.getNeighbor(move / Tmax, move % Tmax);
+		} catch(InvalidMoveException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Same moves as getNeighbor(), evaluated without exceptions
+	 * nor Neighbor objects.
+	 */
+	@Benchmark
+	public float evaluateMove() {
+		int Tmax = instance.getTmax();
+		move = (move + 1) % (instance.getE() * Tmax);
+		
+		return solution.evaluateMove(move / Tmax, move % Tmax);
+	}
+	
+	@Benchmark
+	public float initializeFitness() {
+		solution.initializeFitness();
+		return solution.getFitness();
+	}
+	
+	/**
+	 * Performs a feasible move and then moves the exam back, so that
+	 * the solution does not drift away from the shipped one.
+	 */
+	@Benchmark
+	public float move() throws InvalidMoveException {
+		int Tmax = instance.getTmax();
+		feasibleMove = (feasibleMove + 1) % feasibleMoves.length;
+		
+		int exam = feasibleMoves[feasibleMove] / Tmax;
+		int oldTimeslot = solution.getTimeslot(exam);
+		
+		solution.move(solution.getNeighbor(exam, feasibleMoves[feasibleMove] % Tmax));
+		solution.move(solution.getNeighbor(exam, oldTimeslot));
+		
+		return solution.getFitness();
+	}
+	
+	/**
+	 * Same moves as move(), undone through the undo log.
+	 */
+	@Benchmark
+	public float moveAndRevert() {
+		int Tmax = instance.getTmax();
+		feasibleMove = (feasibleMove + 1) % feasibleMoves.length;
+		
+		int checkpoint = solution.checkpoint();
+		solution.move(feasibleMoves[feasibleMove] / Tmax, feasibleMoves[feasibleMove] % Tmax);
+		float fitness = solution.getFitness();
+		solution.revert(checkpoint);
+		
+		return fitness;
+	}
+}
@@ -3,7 +3,11 @@ package it.polito.oma.etp.reader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintStream;
-import java.util.ArrayList;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 import it.polito.oma.etp.solver.Solution;
 
@@ -11,8 +15,6 @@ import java.io.BufferedReader;
 import java.io.FileOutputStream;
 
 public class InputReader {
-	private static FileReader fr;
-	private static BufferedReader br;
 
 	/**
 	 * Reads .stu .exm .slo files relative to a specific instance to get
@@ -21,10 +23,12 @@ public class InputReader {
 	 * @return Benchmark	Object containing all needed params
 	 */
 	public static InstanceData getData(String instanceName) {
-		int S = extractS(instanceName);
 		int E = extractE(instanceName);
 		int t = extractTmax(instanceName);
-		int[][] n = extractN(instanceName, E);
+		
+		// Both S and N are computed by a single pass over the .stu file
+		int[][] n = new int[E][E];
+		int S = extractStudents(instanceName, n);
 		
 		/*
 		System.out.println("students: " + S + " exams: " + E + " slots: " + t);
@@ -36,41 +40,17 @@ public class InputReader {
 			}
 		}
 		*/
-		InstanceData id = new InstanceData(instanceName, S, E, t, n);
+		
+		// Sparse conflict graph, built once and shared by all solutions
+		int[] conflictIndex = extractConflictIndex(n);
+		int[] conflictingExams = new int[conflictIndex[E]];
+		int[] conflictWeights = new int[conflictIndex[E]];
+		extractConflictGraph(n, conflictIndex, conflictingExams, conflictWeights);
+		
+		InstanceData id = new InstanceData(instanceName, S, E, t, n, conflictIndex, conflictingExams, conflictWeights);
 		return id;
 	}
 	
-	/**
-	 * Extract cardinality of students from the .stu file 
-	 * @param iName	Instance name
-	 */
-	private static int extractS(String iName) {
-		String currentLine, lastLine = "";
-
-		try {
-			fr = new FileReader(iName + ".stu");
-			br = new BufferedReader(fr);
-			
-			/* Last line of the .stu file contains the number of the last student 
-			 * The if condition ensure to not take in consideration an empty last string.*/
-			while((currentLine = br.readLine()) != null) {
-				if(currentLine.length() != 0)
-					lastLine = currentLine;		
-			}
-			
-		} 
-		catch (IOException e) {
-			e.printStackTrace();
-		}
-		
-		/* Extracting from the last line the number of the last student: 
-		 * the format of the last line is "sNUM examnum"
-		 * I cut off the examnum part and take just NUM from the sNUM part.
-		 * Then I convert the string into an integer.
-		 * */
-		return Integer.parseInt(lastLine.split(" ")[0].replace("s", ""));
-	}
-
 	/**
 	 * Extract cardinality of exams from the .exm file 
 	 * @param iName	Instance name
@@ -78,10 +58,7 @@ public class InputReader {
 	private static int extractE(String iName) {
 		String currentLine, lastLine = "";
 		
-		try {
-			fr = new FileReader(iName + ".exm");
-			br = new BufferedReader(fr);
-			
+		try(BufferedReader br = new BufferedReader(new FileReader(iName + ".exm"))) {
 			/* Last line of the .stu file contains the number of the last student 
 			 * The if condition ensure to not take in consideration an empty last string.*/
 			while((currentLine = br.readLine()) != null) {
@@ -111,10 +88,7 @@ public class InputReader {
 		
 		String currentLine = "";
 		
-		try {
-			fr = new FileReader(iName + ".slo");
-			br = new BufferedReader(fr);
-			
+		try(BufferedReader br = new BufferedReader(new FileReader(iName + ".slo"))) {
 			currentLine = br.readLine();
 		} 
 		catch (IOException e) {
@@ -126,80 +100,155 @@ public class InputReader {
 	
 	/**
 	 * Extract the N matrix (number of students attending a given
-	 * pair of exams) from the .stu file
+	 * pair of exams) and the cardinality of students from the .stu
+	 * file, in a single pass.
+	 * The file is memory-mapped and parsed byte by byte, so that
+	 * no String is allocated for each line.
+	 * Format of each line is "sNUM examnum", lines of the same
+	 * student being consecutive.
 	 * @param iName	Instance name
+	 * @param n		N matrix to be filled, having E rows and columns.
+	 * @return		Cardinality of students, i.e. the number of the
+	 * 				last student.
 	 */
-	private static int[][] extractN(String iName, int eNum){
-		String currentLine, nextLine;
-		boolean b = false;
-		ArrayList<Integer> studentExams = new ArrayList<Integer>();
-		int[][] n = new int[eNum][eNum];
+	private static int extractStudents(String iName, int[][] n) {
+		int lastStudent = 0;
 		
-		try {
-			fr = new FileReader(iName + ".stu");
-			br = new BufferedReader(fr);
+		try(FileChannel channel = FileChannel.open(Paths.get(iName + ".stu"), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
 			
-			/* Looping through all valid lines.
-			 * Format of line is sNUM examnum. */
-			while((currentLine = br.readLine()) != null) {
-				if(currentLine.length() != 0) {
-					
-					// Mark the buffer position.
-					if (b == false) br.mark(10000);
-					b = false;
-
-					// Add to studentExams the first exam for that student.
-					studentExams.add(Integer.parseInt(currentLine.split(" ")[1]));
-					
-					// Cycle until the lines have the same sNUM.
-					while((nextLine = br.readLine()) != null && currentLine.split(" ")[0].equals(nextLine.split(" ")[0])) {
-							b = true;
-							/*Adding to the support structure studentExams every single exam
-						 	* for that student. */
-							studentExams.add(Integer.parseInt(nextLine.split(" ")[1]));
-							// Mark the buffer position.
-							br.mark(10000);
-					}
+			// Exams of the student whose lines are being read
+			int[] studentExams = new int[16];
+			int studentExamsNumber = 0;
+			int currentStudent = -1;
+			
+			while(buffer.hasRemaining()) {
+				byte b = buffer.get();
+				
+				// Skipping everything up to the beginning of a line ("sNUM")
+				if(b != 's')
+					continue;
+				
+				int student = parseInt(buffer);
+				int exam = parseInt(buffer);
+				
+				// Malformed line, no exam number
+				if(exam == 0)
+					continue;
 				
-					/* After the last loop, nextLine is the first line of the new student. I don't
-					 * like this because when I will evaluate the condition of the outer loop I will
-					 * move ahead the cursor, not considering the first line of the new student. So I
-					 * will reset the cursor to the last mark which is the last line of the old student.*/
-					br.reset();
-					
-					// Now that I have all the exams for a student x, I update N.
-					updateNMatrix(n, studentExams);
-					
+				// First line of a new student: the previous one is complete
+				if(student != currentStudent) {
+					updateNMatrix(n, studentExams, studentExamsNumber);
+					studentExamsNumber = 0;
+					currentStudent = student;
 				}
-			} 
+				
+				if(studentExamsNumber == studentExams.length)
+					studentExams = Arrays.copyOf(studentExams, studentExamsNumber * 2);
+				studentExams[studentExamsNumber++] = exam;
+				
+				lastStudent = student;
+			}
+			
+			// Last student
+			updateNMatrix(n, studentExams, studentExamsNumber);
 		} 
 		catch (IOException e) {
 			e.printStackTrace();
 		}
 		
-		return n;
+		return lastStudent;
+	}
+	
+	/**
+	 * Reads the next decimal number from the buffer, skipping any
+	 * non-digit character before it. The character following the
+	 * number is consumed as well.
+	 * @param buffer	buffer positioned before the number.
+	 * @return			the number, or 0 if the end of the line (or of
+	 * 					the buffer) is reached before any digit.
+	 */
+	private static int parseInt(MappedByteBuffer buffer) {
+		int value = 0;
+		boolean digits = false;
+		
+		while(buffer.hasRemaining()) {
+			byte b = buffer.get();
+			
+			if(b >= '0' && b <= '9') {
+				value = value * 10 + (b - '0');
+				digits = true;
+			}
+			else if(digits || b == '\n')
+				break;
+		}
+		
+		return value;
 	}
 	
 	/**
 	 * Updates the N Matrix given a list of exams for a particular student.
-	 * @param n			The N matrix.
-	 * @param examList	ArrayList containing all the exams for a student.
+	 * @param n					The N matrix.
+	 * @param examList			Array containing all the exams for a student.
+	 * @param examListLength	Number of valid elements of examList.
 	 */
-	private static void updateNMatrix(int[][] n, ArrayList<Integer> examList) {
+	private static void updateNMatrix(int[][] n, int[] examList, int examListLength) {
 		/* I have to place in couple every exam in examList and then add 1 to the 
 		 * specific element in the n matrix.
-		 * Here i is used to mark the first element of the couple in the arraylist.*/
-		for(int i = 0; i < examList.size(); i++) {
+		 * Here i is used to mark the first element of the couple in the array.*/
+		for(int i = 0; i < examListLength; i++) {
 			// j is the second element of the couple and always starts one position after i.
-			for(int j = i + 1; j < examList.size(); j++) {
+			for(int j = i + 1; j < examListLength; j++) {
 				
 				// N matrix is symmetric.
-				n[examList.get(i)-1][examList.get(j)-1]++;
-				n[examList.get(j)-1][examList.get(i)-1]++;
+				n[examList[i]-1][examList[j]-1]++;
+				n[examList[j]-1][examList[i]-1]++;
 			}
 		}
-		// Prepare the list for the next student.
-		examList.clear();
+	}
+	
+	/**
+	 * Computes, for each exam, the position in which its conflicting
+	 * exams start inside the sparse conflict graph.
+	 * @param n	The N matrix.
+	 * @return	Row offsets array, having E + 1 elements.
+	 */
+	private static int[] extractConflictIndex(int[][] n) {
+		int[] conflictIndex = new int[n.length + 1];
+		
+		for(int i = 0; i < n.length; ++i) {
+			conflictIndex[i + 1] = conflictIndex[i];
+			
+			for(int j = 0; j < n.length; ++j)
+				if(i != j && n[i][j] > 0)
+					++conflictIndex[i + 1];
+		}
+		
+		return conflictIndex;
+	}
+	
+	/**
+	 * Fills the sparse conflict graph given the N matrix: for each exam,
+	 * its conflicting exams and the corresponding number of students
+	 * enrolled in both exams are stored contiguously.
+	 * @param n					The N matrix.
+	 * @param conflictIndex		Already computed row offsets.
+	 * @param conflictingExams	Conflicting exams array to be filled.
+	 * @param conflictWeights	Conflict weights array to be filled.
+	 */
+	private static void extractConflictGraph(int[][] n, int[] conflictIndex, 
+											 int[] conflictingExams, int[] conflictWeights
+	) {
+		for(int i = 0; i < n.length; ++i) {
+			int position = conflictIndex[i];
+			
+			for(int j = 0; j < n.length; ++j)
+				if(i != j && n[i][j] > 0) {
+					conflictingExams[position] = j;
+					conflictWeights[position] = n[i][j];
+					++position;
+				}
+		}
 	}
 	
 	/**
@@ -0,0 +1,136 @@
+package it.polito.oma.etp.reader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the instances already read, so that solving the same instance
+ * again does not require parsing its files. Instances are identified
+ * by the path of their files and invalidated as soon as any of those
+ * files changes.
+ * Each instance is also stored as a binary snapshot next to its text
+ * files (instanceName.snapshot), so that it can be loaded quickly by
+ * other processes as well.
+ */
+public class InstanceCache {
+	public static final String SNAPSHOT_EXTENSION = ".snapshot";
+	
+	/**
+	 * Files an instance is read from, by InputReader.
+	 */
+	private static final String[] SOURCE_EXTENSIONS = {".exm", ".slo", ".stu"};
+	
+	/**
+	 * Instances read so far, by absolute path.
+	 */
+	private final ConcurrentHashMap<Path, CachedInstance> instances = new ConcurrentHashMap<Path, CachedInstance>();
+	
+	/**
+	 * True if binary snapshots have to be read and written.
+	 */
+	private final boolean snapshots;
+	
+	public InstanceCache() {
+		this(true);
+	}
+	
+	/**
+	 * @param snapshots		true if instances must be stored as binary
+	 * 						snapshots too, false if they must be kept
+	 * 						in memory only.
+	 */
+	public InstanceCache(boolean snapshots) {
+		this.snapshots = snapshots;
+	}
+	
+	/**
+	 * Same as InputReader.getData(), but the instance is read from
+	 * its files only if it is not cached or its files have changed.
+	 * @param instanceName	Name of the files to read without extensions
+	 * @return				Object containing all needed params
+	 */
+	public InstanceData getData(String instanceName) {
+		long stamp = getStamp(instanceName);
+		
+		return instances.compute(
+			Paths.get(instanceName).toAbsolutePath().normalize(),
+			(path, cached) -> (cached != null && cached.stamp == stamp) ?
+				cached :
+				new CachedInstance(stamp, load(instanceName, stamp))
+		).instance;
+	}
+	
+	/**
+	 * Reads an instance from its snapshot if it is up to date,
+	 * from its text files otherwise.
+	 * @param instanceName	Name of the files to read without extensions
+	 * @param stamp			current version of the instance files.
+	 * @return				the instance data.
+	 */
+	private InstanceData load(String instanceName, long stamp) {
+		if(!snapshots)
+			return InputReader.getData(instanceName);
+		
+		Path snapshot = Paths.get(instanceName + SNAPSHOT_EXTENSION);
+		
+		if(Files.exists(snapshot)) {
+			try {
+				InstanceData instance = InstanceSnapshot.read(snapshot, stamp);
+				
+				if(instance != null)
+					return instance;
+			} catch(IOException | RuntimeException e) {
+				// Malformed snapshot, whatever the way it fails: it is rebuilt below
+			}
+		}
+		
+		InstanceData instance = InputReader.getData(instanceName);
+		
+		try {
+			InstanceSnapshot.write(instance, stamp, snapshot);
+		} catch(IOException e) {
+			// Read-only directory: the instance is cached in memory only
+		}
+		
+		return instance;
+	}
+	
+	/**
+	 * @param instanceName	Name of the files to read without extensions
+	 * @return				a value changing whenever the modification time or
+	 * 						the size of any instance file changes.
+	 */
+	private static long getStamp(String instanceName) {
+		long stamp = 17;
+		
+		for(String extension: SOURCE_EXTENSIONS) {
+			Path file = Paths.get(instanceName + extension);
+			
+			try {
+				stamp = 31 * stamp + Files.getLastModifiedTime(file).toMillis();
+				stamp = 31 * stamp + Files.size(file);
+			} catch(IOException e) {
+				throw new UncheckedIOException("Cannot read " + file, e);
+			}
+		}
+		
+		return stamp;
+	}
+	
+	/**
+	 * Instance along with the version of the files it has been read from.
+	 */
+	private static class CachedInstance {
+		private final long stamp;
+		private final InstanceData instance;
+		
+		private CachedInstance(long stamp, InstanceData instance) {
+			this.stamp = stamp;
+			this.instance = instance;
+		}
+	}
+}
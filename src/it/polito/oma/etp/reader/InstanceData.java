@@ -31,23 +31,80 @@ public class InstanceData {
 	 * Matrix containing number of students attending exams
 	 * Rows and columns' indexes represent exams.
 	 * Conflicting exams i and j have N[i][j] > 0.
+	 * Solvers only use the sparse conflict graph, so it is built from
+	 * the latter the first time it is asked for, if not given.
 	 */
-	private final int[][] N;
+	private volatile int[][] N;
+	
+	/**
+	 * Sparse (compressed row) representation of N.
+	 * Conflicting exams of exam i are stored in
+	 * conflictingExams[conflictIndex[i]] ... conflictingExams[conflictIndex[i + 1] - 1],
+	 * while conflictWeights holds the corresponding N values.
+	 */
+	private final int[] conflictIndex;
+	private final int[] conflictingExams;
+	private final int[] conflictWeights;
+	
+	/**
+	 * Penalty paid by each student enrolled in two exams, indexed by
+	 * the distance in timeslots between them: 2^(K - d) when
+	 * 1 <= d <= K, 0 otherwise.
+	 */
+	private final int[] distanceWeights;
+	
+	/**
+	 * Bitset representation of the conflict graph: bit j of
+	 * conflictBitsets[i] is set when exams i and j are in conflict.
+	 * Bit j is stored in word j / 64, at position j % 64.
+	 */
+	private final long[][] conflictBitsets;
+	
+	/**
+	 * Constructor building the N matrix only when needed.
+	 * @see #InstanceData(String, int, int, int, int[][], int[], int[], int[])
+	 */
+	public InstanceData(String in, int s, int e, int tmax,
+						int[] conflictIndex, int[] conflictingExams, int[] conflictWeights
+	) {
+		this(in, s, e, tmax, null, conflictIndex, conflictingExams, conflictWeights);
+	}
 	
 	/**
 	 * Constructor for an initial feasible solution.
-	 * @param in	Instance name.
-	 * @param s		Number of students.
-	 * @param e		Number of exams.
-	 * @param tmax	Number of timeslots.
-	 * @param n		Matrix containing number of students enrolled in every pair of exams.
+	 * @param in				Instance name.
+	 * @param s					Number of students.
+	 * @param e					Number of exams.
+	 * @param tmax				Number of timeslots.
+	 * @param n					Matrix containing number of students enrolled in every pair of exams,
+	 * 							or null to build it from the conflict graph when needed.
+	 * @param conflictIndex		For each exam, the first position of its conflicting exams
+	 * 							inside conflictingExams (E + 1 elements).
+	 * @param conflictingExams	Conflicting exams of every exam, stored row after row.
+	 * @param conflictWeights	Number of students enrolled in both exams, for each
+	 * 							element of conflictingExams.
 	 */
-	public InstanceData(String in, int s, int e, int tmax, int[][] n) {
+	public InstanceData(String in, int s, int e, int tmax, int[][] n,
+						int[] conflictIndex, int[] conflictingExams, int[] conflictWeights
+	) {
 		instanceName = in;
 		S = s;
 		E = e;
 		Tmax = tmax;
 		N = n;
+		this.conflictIndex = conflictIndex;
+		this.conflictingExams = conflictingExams;
+		this.conflictWeights = conflictWeights;
+		
+		// Every distance between two timeslots is a valid index
+		distanceWeights = new int[Math.max(tmax, K + 1)];
+		for(int d = 1; d <= K; ++d)
+			distanceWeights[d] = 1 << (K - d);
+		
+		conflictBitsets = new long[e][getBitsetWords()];
+		for(int i = 0; i < e; ++i)
+			for(int c = conflictIndex[i]; c < conflictIndex[i + 1]; ++c)
+				conflictBitsets[i][conflictingExams[c] >>> 6] |= 1L << conflictingExams[c];
 	}
 	
 	public int getK() {
@@ -85,8 +142,105 @@ public class InstanceData {
 	/**
 	 * @return Matrix containing number of students attending exams.
 	 * Rows and columns' indexes represent exams.
+	 * It takes O(E^2) time and memory the first time it is built: use
+	 * the sparse conflict graph instead (e.g. getConflictSlot()).
 	 */
 	public int[][] getN(){
-		return N;
+		int[][] n = N;
+		
+		if(n == null) {
+			synchronized(this) {
+				n = N;
+				
+				if(n == null) {
+					n = new int[E][E];
+					for(int i = 0; i < E; ++i)
+						for(int c = conflictIndex[i]; c < conflictIndex[i + 1]; ++c)
+							n[i][conflictingExams[c]] = conflictWeights[c];
+					
+					N = n;
+				}
+			}
+		}
+		
+		return n;
+	}
+	
+	/**
+	 * @return For each exam i, the position in getConflictingExams() where
+	 * its conflicting exams start; they end at position getConflictIndex()[i + 1].
+	 */
+	public int[] getConflictIndex() {
+		return conflictIndex;
+	}
+	
+	/**
+	 * @return Conflicting exams of every exam, stored row after row.
+	 */
+	public int[] getConflictingExams() {
+		return conflictingExams;
+	}
+	
+	/**
+	 * @return Number of students enrolled in both exams, for each
+	 * element of getConflictingExams().
+	 */
+	public int[] getConflictWeights() {
+		return conflictWeights;
+	}
+	
+	/**
+	 * @return Penalty per student for every distance between two
+	 * timeslots (from 0 to Tmax - 1).
+	 */
+	public int[] getDistanceWeights() {
+		return distanceWeights;
+	}
+	
+	/**
+	 * @param distance	distance in timeslots between two exams.
+	 * @return			Penalty paid by each student enrolled in both exams.
+	 */
+	public int getDistanceWeight(int distance) {
+		return distanceWeights[distance];
+	}
+	
+	/**
+	 * @return Number of words of a bitset having one bit for each exam.
+	 */
+	public int getBitsetWords() {
+		return (E + 63) >>> 6;
+	}
+	
+	/**
+	 * @param exam	exam index.
+	 * @return		Bitset of the exams in conflict with the given one,
+	 * 				having getBitsetWords() words.
+	 */
+	public long[] getConflictBitset(int exam) {
+		return conflictBitsets[exam];
+	}
+	
+	/**
+	 * @param exam	exam index.
+	 * @return		Number of exams in conflict with the given one.
+	 */
+	public int getDegree(int exam) {
+		return conflictIndex[exam + 1] - conflictIndex[exam];
+	}
+	
+	/**
+	 * Looks for the position of a conflicting exam pair inside the sparse
+	 * conflict graph. Conflicting exams are stored in increasing order, so
+	 * a binary search over the row of the first exam is enough.
+	 * @param exam1	first exam index.
+	 * @param exam2	second exam index.
+	 * @return		position of exam2 among the conflicting exams of exam1,
+	 * 				or -1 if the two exams are not in conflict.
+	 */
+	public int getConflictSlot(int exam1, int exam2) {
+		int slot = java.util.Arrays.binarySearch(conflictingExams, conflictIndex[exam1], conflictIndex[exam1 + 1], exam2);
+		
+		return (slot >= 0) ? slot : -1;
 	}
-}
\ No newline at end of file
+}
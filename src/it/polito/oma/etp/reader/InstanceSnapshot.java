@@ -0,0 +1,168 @@
+package it.polito.oma.etp.reader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact binary representation of an InstanceData object, so that
+ * an instance can be loaded again without parsing its text files.
+ * Only the sparse conflict graph is stored: the distance weights and
+ * the conflict bitsets are rebuilt from it, the N matrix only if asked for.
+ *
+ * Format (big-endian ints):
+ * magic, version, source files stamp (long), S, E, Tmax,
+ * number of conflicting pairs (nnz), instance name length in bytes,
+ * instance name (UTF-8, padded to a multiple of 4 bytes),
+ * conflictIndex (E + 1 ints), conflictingExams (nnz ints),
+ * conflictWeights (nnz ints).
+ */
+public class InstanceSnapshot {
+	private static final int MAGIC = 0x45545031;	// "ETP1"
+	private static final int VERSION = 1;
+	
+	/**
+	 * Header size in bytes, instance name excluded.
+	 */
+	private static final int HEADER_BYTES = 4 + 4 + 8 + 5 * 4;
+	
+	/**
+	 * Writes the snapshot of an instance. The file is written aside and
+	 * then moved in place, so that readers never see a partial snapshot.
+	 * @param instance		instance to be stored.
+	 * @param stamp			identifies the version of the source files the
+	 * 						instance has been read from.
+	 * @param snapshot		snapshot file.
+	 * @throws IOException	if the snapshot cannot be written.
+	 */
+	public static void write(InstanceData instance, long stamp, Path snapshot) throws IOException {
+		byte[] name = instance.getInstanceName().getBytes(StandardCharsets.UTF_8);
+		int[] conflictIndex = instance.getConflictIndex();
+		int nnz = conflictIndex[instance.getE()];
+		
+		ByteBuffer buffer = ByteBuffer.allocate(
+			HEADER_BYTES + pad(name.length) + (conflictIndex.length + 2 * nnz) * 4
+		);
+		buffer.putInt(MAGIC)
+			.putInt(VERSION)
+			.putLong(stamp)
+			.putInt(instance.getS())
+			.putInt(instance.getE())
+			.putInt(instance.getTmax())
+			.putInt(nnz)
+			.putInt(name.length)
+			.put(name);
+		buffer.position(HEADER_BYTES + pad(name.length));
+		
+		IntBuffer ints = buffer.asIntBuffer();
+		ints.put(conflictIndex);
+		ints.put(instance.getConflictingExams(), 0, nnz);
+		ints.put(instance.getConflictWeights(), 0, nnz);
+		buffer.rewind();
+		
+		Path temporary = Files.createTempFile(snapshot.toAbsolutePath().getParent(), snapshot.getFileName().toString(), ".tmp");
+		try {
+			try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+				while(buffer.hasRemaining())
+					channel.write(buffer);
+			}
+			
+			Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+	
+	/**
+	 * Loads an instance from its memory-mapped snapshot.
+	 * @param snapshot		snapshot file.
+	 * @param stamp			version of the source files the snapshot must
+	 * 						have been built from.
+	 * @return				the instance, or null if the snapshot has been built
+	 * 						from another version of the source files.
+	 * @throws IOException	if the snapshot cannot be read or is malformed.
+	 */
+	public static InstanceData read(Path snapshot, long stamp) throws IOException {
+		try(FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			
+			if(buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+				throw new IOException(snapshot + " is not an instance snapshot");
+			
+			// Outdated snapshot
+			if(buffer.getLong() != stamp)
+				return null;
+			
+			int S = buffer.getInt();
+			int E = buffer.getInt();
+			int Tmax = buffer.getInt();
+			int nnz = buffer.getInt();
+			int nameLength = buffer.getInt();
+			
+			if(	E < 0 || nnz < 0 || nameLength < 0 ||
+				buffer.capacity() != (long)HEADER_BYTES + pad(nameLength) + ((long)E + 1 + 2L * nnz) * 4
+			)
+				throw new IOException(snapshot + " is truncated");
+			
+			byte[] name = new byte[nameLength];
+			buffer.get(name);
+			buffer.position(HEADER_BYTES + pad(nameLength));
+			
+			IntBuffer ints = buffer.asIntBuffer();
+			int[] conflictIndex = new int[E + 1];
+			int[] conflictingExams = new int[nnz];
+			int[] conflictWeights = new int[nnz];
+			ints.get(conflictIndex);
+			ints.get(conflictingExams);
+			ints.get(conflictWeights);
+			
+			// Offsets and exam indexes are used without bounds checks later on
+			if(!isValidConflictGraph(E, conflictIndex, conflictingExams) || S <= 0 || Tmax <= 0)
+				throw new IOException(snapshot + " is corrupted");
+			
+			// The dense N matrix is only built if some caller asks for it
+			return new InstanceData(
+				new String(name, StandardCharsets.UTF_8),
+				S, E, Tmax,
+				conflictIndex, conflictingExams, conflictWeights
+			);
+		}
+	}
+	
+	/**
+	 * @param E					number of exams.
+	 * @param conflictIndex		row offsets of the conflict graph.
+	 * @param conflictingExams	conflicting exams, row after row.
+	 * @return					true if rows are contiguous, cover all conflicting
+	 * 							exams, and contain valid exam indexes only.
+	 */
+	private static boolean isValidConflictGraph(int E, int[] conflictIndex, int[] conflictingExams) {
+		if(conflictIndex[0] != 0 || conflictIndex[E] != conflictingExams.length)
+			return false;
+		
+		for(int i = 0; i < E; ++i)
+			if(conflictIndex[i] > conflictIndex[i + 1])
+				return false;
+		
+		for(int exam: conflictingExams)
+			if(exam < 0 || exam >= E)
+				return false;
+		
+		return true;
+	}
+	
+	/**
+	 * @param bytes		number of bytes.
+	 * @return			the smallest multiple of 4 not lower than bytes.
+	 */
+	private static int pad(int bytes) {
+		return (bytes + 3) & ~3;
+	}
+}
@@ -0,0 +1,56 @@
+package it.polito.oma.etp.solver;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Best solution shared among several solving algorithms running
+ * concurrently. Improvements are published without locking.
+ */
+public class BestSolutionBoard {
+	/**
+	 * Best solution published so far, null if none.
+	 * Published solutions must not be modified afterwards.
+	 */
+	private final AtomicReference<Solution> bestSolution = new AtomicReference<Solution>();
+	
+	/**
+	 * Notified about every improvement, by the publishing thread.
+	 */
+	private final SolverListener listener;
+	
+	public BestSolutionBoard() {
+		this(SolverListener.NONE);
+	}
+	
+	public BestSolutionBoard(SolverListener listener) {
+		this.listener = listener;
+	}
+	
+	/**
+	 * Publishes a solution, replacing the current best one if it
+	 * has a lower fitness value.
+	 * @param candidate		solution snapshot to be published.
+	 * @return				true if the candidate became the best solution.
+	 */
+	public boolean publish(Solution candidate) {
+		Solution currentBest;
+		
+		do {
+			currentBest = bestSolution.get();
+			
+			// The candidate does not improve the best solution
+			if(currentBest != null && currentBest.getFitness() <= candidate.getFitness())
+				return false;
+		} while(!bestSolution.compareAndSet(currentBest, candidate));
+		
+		listener.bestSolutionImproved(candidate);
+		return true;
+	}
+	
+	/**
+	 * @return	the best solution published so far, null if none.
+	 */
+	public Solution getBestSolution() {
+		return bestSolution.get();
+	}
+}
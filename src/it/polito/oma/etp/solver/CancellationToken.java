@@ -0,0 +1,70 @@
+package it.polito.oma.etp.solver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stopping condition of a single solving run, shared by all the
+ * algorithms taking part in it. A run stops when its deadline is
+ * reached or when it is explicitly cancelled, whichever comes first,
+ * so that several runs can take place in the same JVM.
+ */
+public class CancellationToken {
+	/**
+	 * Deadline in System.nanoTime() terms, meaningless if
+	 * hasDeadline is false.
+	 */
+	private final long deadline;
+	private final boolean hasDeadline;
+	
+	/**
+	 * Set once the run has to stop; volatile, so that it is
+	 * read again by every check.
+	 */
+	private volatile boolean cancelled;
+	
+	private CancellationToken(long deadline, boolean hasDeadline) {
+		this.deadline = deadline;
+		this.hasDeadline = hasDeadline;
+	}
+	
+	/**
+	 * @return	a token stopping the run only when cancelled.
+	 */
+	public static CancellationToken withoutDeadline() {
+		return new CancellationToken(0, false);
+	}
+	
+	/**
+	 * @param timeout	time the run is allowed to last, from now on.
+	 * @param unit		timeout time unit.
+	 * @return			a token stopping the run when the timeout expires
+	 * 					or when cancelled.
+	 */
+	public static CancellationToken withTimeout(long timeout, TimeUnit unit) {
+		return new CancellationToken(System.nanoTime() + unit.toNanos(timeout), true);
+	}
+	
+	/**
+	 * Asks every algorithm checking this token to stop.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+	
+	/**
+	 * Checks whether the run has to stop. It costs a volatile read and,
+	 * until the run is stopped, a System.nanoTime() call, so it can be
+	 * called once per iteration.
+	 * @return	true if the run has been cancelled or its deadline
+	 * 			has been reached.
+	 */
+	public boolean isCancelled() {
+		if(cancelled)
+			return true;
+		
+		if(hasDeadline && System.nanoTime() - deadline >= 0)
+			cancelled = true;
+		
+		return cancelled;
+	}
+}
@@ -1,17 +1,12 @@
 package it.polito.oma.etp.solver;
 
-import java.util.ArrayList;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
 
 import it.polito.oma.etp.reader.InputReader;
+import it.polito.oma.etp.reader.InstanceCache;
 import it.polito.oma.etp.reader.InstanceData;
-import it.polito.oma.etp.solver.initialization.InitializationPopulation;
-import it.polito.oma.etp.solver.initialization.InitializationSolution;
-import it.polito.oma.etp.solver.initialization.TabuInitialization;
-import it.polito.oma.etp.solver.optimization.GeneticOptimization;
 import it.polito.oma.etp.solver.optimization.OptimizationSolution;
-import it.polito.oma.etp.solver.optimization.TabuOptimization;
 
 public class ETPsolver_OMAAL_group15 {
 	private InstanceData instance;
@@ -19,6 +14,23 @@ public class ETPsolver_OMAAL_group15 {
 	private Settings commonSettings;
 	private int timeout;
 	
+	/**
+	 * Seed of the run random streams, printed so that the initial
+	 * population can be built again.
+	 */
+	private long seed = System.nanoTime();
+	
+	/**
+	 * Stopping condition shared by all the algorithms of this run.
+	 */
+	private CancellationToken cancellationToken;
+	
+	/**
+	 * Number of Tabu Search walkers solving the optimization problem
+	 * concurrently, one for each available core.
+	 */
+	private static final int OPTIMIZATION_THREADS = Runtime.getRuntime().availableProcessors();
+	
 	public ETPsolver_OMAAL_group15(String[] args) {
 		inputArgumentsParsing(args);
 		readingInstanceData();
@@ -27,9 +39,9 @@ public class ETPsolver_OMAAL_group15 {
 	
 	private void inputArgumentsParsing(String[] args) {
 		// Input argument number checking
-		if(args.length != 3) {
+		if(args.length != 3 && args.length != 5) {
 			System.err.println(
-				"Usage: java it.polito.oma.etp.solver.ETPsolver_OMAAL_group15 instance_id -t timeout"
+				"Usage: java it.polito.oma.etp.solver.ETPsolver_OMAAL_group15 instance_id -t timeout [-s seed]"
 			);
 			System.exit(1);
 		}
@@ -48,10 +60,29 @@ public class ETPsolver_OMAAL_group15 {
 			System.err.println("Invalid timeout value: it must be a positive integer");
 			System.exit(1);
 		}
+		
+		// Optional seed, for building the same initial population again
+		if(args.length == 5) {
+			if(args[3].compareTo("-s") != 0) {
+				System.err.println("Fourth argoment must be the -s flag");
+				System.exit(1);
+			}
+			
+			try {
+				seed = Long.parseLong(args[4]);
+			} catch(NumberFormatException e) {
+				System.err.println("Invalid seed value: it must be an integer");
+				System.exit(1);
+			}
+		}
 	}
 	
 	private void readingInstanceData() {
-		instance = InputReader.getData("res\\" + instanceName);
+		/**
+		 * A single instance is read by each run, so the in-memory cache never
+		 * hits here: repeated runs on the same instance load its binary snapshot
+		 */
+		instance = new InstanceCache().getData("res" + File.separator + instanceName);
 	}
 	
 	/**
@@ -64,270 +95,52 @@ public class ETPsolver_OMAAL_group15 {
 			false,	// firstRandomSolution
 			1,		// initialPopulationSize
 					/**
-					 * It will be overwritten to 1 if
-					 * the optimization problem will be solved
-					 * by the Tabu Search algorithm, since it
-					 * just needs one initial feasible solution.
+					 * It will be overwritten to the number of
+					 * Tabu Search walkers if the optimization
+					 * problem will be solved by the Tabu Search
+					 * algorithm, since each walker just needs
+					 * one initial feasible solution.
 					 */
 			
 			false,	// geneticInitialization
-			false	// geneticOptimization
+			false,	// geneticOptimization
+			seed	// seed
 		);
 	}
 	
-	private InitializationPopulation initialization() {
-		if(commonSettings.geneticInitialization)
-			return geneticInitialization();
-		else
-			return tabuInitialization();
-	}
-	
-	private InitializationPopulation tabuInitialization() {
-		// Tabu List dynamic size: time worsening criterion
-	    int tabuListInitialSize = 20;
-	    int tabuListMaxSize = 45;
-	    int tabuListIntervalAdd = 4;
-	    double tabuListIncrementTimeInterval = ((float)timeout / 3) / ((tabuListMaxSize - tabuListInitialSize) / tabuListIntervalAdd);
-	  
-	    // Tabu Search initialization tuning
-	    TabuSettings initializationSettings = new TabuSettings(
-			// Common settings
-	    	commonSettings,
-	    		
-	    	// General Tabu List settings
-			1,	// neighborhoodGeneratingPairsPercentage
-			false,	// considerAllTimeslots
-			20,		// tabuListInitialSize
-			
-			// Dynamic Tabu List section
-			true,	// dynamicTabuList
-			2,		// worseningCriterion (1: deltaFitness, 2: iterations, 3: time)
-			45,		// tabuListMaxSize
-			9000,	// maxNonImprovingIterationsAllowed
-			3,		// tabuListIncrementSize
-			
-			// deltaFitness worsening criterion
-			50,		// movingAveragePeriod
-			
-			// time worsening criterion
-			tabuListIncrementTimeInterval, 		// tabuListIncrementTimeInterval
-			1									// numberOfThreads
-		);
-		
-		// Starting a stopwatch
-		double startTime = System.nanoTime();
-		
-		// Thread definitions running TabuInitialization implementations
-		ArrayList<Thread> tabuInitializationThreads = new ArrayList<Thread>();
-		InitializationPopulation initialPopulation = new InitializationPopulation(instance);
-		
-		for(int i = 0; i < initializationSettings.numberOfThreads; ++i) {
-			tabuInitializationThreads.add(
-				new Thread() {
-					public void run() {
-						/*TODO debug*/ //System.out.println(this.getName() + " started looking for an infeasible solution.");
-						
-						// Feasible solution generation.
-						TabuSearch feasibleSolutionGenerator = new TabuInitialization(instance, initializationSettings);
-						InitializationSolution initialFeasibleSolution = (InitializationSolution)feasibleSolutionGenerator.solve();
-						
-						synchronized(initialPopulation) {
-							/*TODO debug*/ //System.out.println(this.getName() + " has found a solution. It's " + (!initialFeasibleSolution.isFeasible() ? "not" : "") + "feasible: " + initialFeasibleSolution);
-							
-							initialPopulation.updateWorstAndBestSolution();
-							/**
-							 * Adding the new feasible solution to the initial population
-							 * if it is feasible.
-							 */
-							initialPopulation.add(initialFeasibleSolution);
-							
-							/**
-							 * Waking main thread to let it check if the initial population
-							 * has been completely filled.
-							 */
-							initialPopulation.notifyAll();
-						}
-					}
-				}
-			);
-		}
-		
-		// Starting all TabuInitialization threads
-		for(Thread thread : tabuInitializationThreads)
-			thread.start();
-		
-		/**
-		 * Main thread will wait until:
-		 * 
-		 * - the initial population has been completely filled
-		 * - time is over
-		 */
-		synchronized(initialPopulation) {
-			while(initialPopulation.getSize() < initializationSettings.initialPopulationSize) {
-				try {
-					initialPopulation.wait();
-				} catch(InterruptedException e) {
-					e.printStackTrace();
-				}
-			}
-		}
-		
-		for(Thread thread : tabuInitializationThreads) {
-			if(thread.getState() != Thread.State.TERMINATED)
-				thread.interrupt();
-		}
-		
-		/*
-		 * IMPORTANT! You must filter infeasible solutions from setOfSolutions here!
-		 */
-		for(int i = 0; i < initialPopulation.getSize(); i++) {
-			if(initialPopulation.getSize() != 0) {
-				if(!initialPopulation.getSolution(i).isFeasible()) {
-					/*TODO debug*/System.out.println("Removing " + initialPopulation.getSolution(i));
-					initialPopulation.delete(i);
-					i--;
-				}
-			}
-		}
-		
-		// Checking whether the initial population solution has been completely filled
-		if(initialPopulation.getSize() < initializationSettings.initialPopulationSize)
-			throw new AssertionError(
-				"The solver couldn't find " +  initializationSettings.initialPopulationSize + 
-				" feasible solutions to start with." + 
-				"\nNumber of feasible solutions found: " + initialPopulation.getSize()
-			);
-		
-		// Computing the elapsed time since starting searching for feasible solutions
-		double finishTime = System.nanoTime();
-		double elapsedTime = (finishTime - startTime) / 1000000000;
-		/*TODO debug*//*System.out.println(
-			"Time to generate " + initializationSettings.initialPopulationSize + 
-			" feasible solutions for " + instance.getInstanceName() + ": " +
-			elapsedTime + " seconds"
-		);*/
-
-		// TODO (debug) Printing initial feasible population
-//		System.out.println("initialPopulation found:");
-//		for(Solution initialFeasibleSolution: initialPopulation.getChromosomes())
-//			System.out.println(initialFeasibleSolution);
-//		
-		return initialPopulation;
-	}
-	
-	// TODO implement
-	private InitializationPopulation geneticInitialization() {
-		throw new AssertionError("GeneticInitialization still to be implemented");
-	}
-	
-	private OptimizationSolution optimization(InitializationPopulation initialPopulation) {
-		if(commonSettings.geneticOptimization)
-			return geneticOptimization(initialPopulation);
-		else
-			return tabuOptimization((InitializationSolution)initialPopulation.getChromosomes().get(0));
-	}
-	
-	private OptimizationSolution tabuOptimization(InitializationSolution initialSolution) {
-		// Tabu List dynamic size: time worsening criterion
-	    int tabuListInitialSize = 20;
-	    int tabuListMaxSize = 40;
-	    int tabuListIntervalAdd = 5;
-	    double tabuListIncrementTimeInterval = ((float)timeout / 3) / ((tabuListMaxSize - tabuListInitialSize) / tabuListIntervalAdd);
-		
-		// Tabu Search optimization tuning
-		TabuSettings optimizationSettings  = new TabuSettings(
-			// Common settings
-	    	commonSettings,
-				
-			// General Tabu List settings
-			1,		// neighborhoodGeneratingPairsPercentage
-			true,	// considerAllTimeslots
-			20,		// tabuListInitialSize
-			
-			// Dynamic Tabu List section
-			true,	// dynamicTabuList
-			1,		// worseningCriterion (1: deltaFitness, 2: iterations, 3: time)
-			45,		// tabuListMaxSize
-			9000,	// maxNonImprovingIterationsAllowed
-			7,		// tabuListIncrementSize
-			
-			// deltaFitness worsening criterion
-			50,		// movingAveragePeriod
-			
-			// time worsening criterion
-			tabuListIncrementTimeInterval, 		// tabuListIncrementTimeInterval
-			1									// numberOfThreads
-		);
-		
-		TabuSearch solutionGenerator = new TabuOptimization(
-			instance, 
-			initialSolution, 
-			optimizationSettings
-		);
-		
-		return (OptimizationSolution)solutionGenerator.solve();
-	}
-	
-	private OptimizationSolution geneticOptimization(InitializationPopulation initialPopulation) {
-		// Genetic Algorithm tuning
-		int[] cuttingPoints = {3,7};
-		GeneticSettings gaSettings = new GeneticSettings(
-			// Common settings
-	    	commonSettings,
-				
-			// General GA settings
-			false, 				// initializationProblem
-			true,				// randomParentSelection
-			2, 					// numberOfReproductiveParents
-			true,				// selectChromosomesToKillByRelativeFitness
-			2, 					// cuttingPointsNumber -> NB: if we wont just one cutting point we have to 
-								// set whereToCut = {0,x}
-			true, 				// randomCuttingPoint
-			null,				// whereToCut
-			2,					// numberOfChildrenToGenerate
-			20,					// cloningManagementThreshold
-			10,					// genesToMutateIfClones
-			0.05,				// mutationProbabilityInitialValue
-			0.05,				// mutationProbabilityMinimumValue
-			0.5,				// mutationProbabilityMaximumValue
-			50,					// mutationProbabilityManagementThreshold
-			0.5,				// mutationProbabilityConvergenceRatio
-			0.1					// mutatingGenesPercentage
-		);
-		
-		GeneticAlgorithm solutionGenerator = new GeneticOptimization(instance, gaSettings, initialPopulation);
-		return (OptimizationSolution)solutionGenerator.solve();
+	/**
+	 * Solves the instance given as input argument, using all
+	 * available cores.
+	 * @return	the best solution found before the timeout expired.
+	 */
+	private OptimizationSolution solve() {
+		return new SolvingJob(
+			instance,
+			commonSettings,
+			OPTIMIZATION_THREADS,
+			timeout,
+			cancellationToken,
+			SolverListener.NONE
+		).solve();
 	}
 	
 	private void startTimer() {
-		// Starting the execution timer 
-		new Timer().schedule(
-			// TimerTask that will stop the algorithm execution
-			new TimerTask() {
-				@Override
-				public void run() {
-					TabuSearch.stopExecution();
-					GeneticAlgorithm.stopExecution();
-				}
-			},
-			
-			// Timeout value in milliseconds
-			timeout * 1000
-		);
+		// From now on, algorithms stop as soon as the timeout expires
+		cancellationToken = CancellationToken.withTimeout(timeout, TimeUnit.SECONDS);
 	}
 	
 	public static void main(String[] args) {
 		// Initializing solver having all needed instance data
 		ETPsolver_OMAAL_group15 solver = new ETPsolver_OMAAL_group15(args);
 		
+		// Printing the seed, which can be given back through the -s flag
+		System.out.println("Seed: " + solver.seed);
+		
 		// Starting execution timer within the solution must be returned
 		solver.startTimer();
 		
-		// Searching for feasible solutions
-		InitializationPopulation initialPopulation = solver.initialization();
-		
 		// Computing the timetabling solution
-		OptimizationSolution solution = solver.optimization(initialPopulation);
+		OptimizationSolution solution = solver.solve();
 		
 		// Printing final solution in cons
 		System.out.println("Final solution found: " + solution);
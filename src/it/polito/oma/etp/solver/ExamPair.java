@@ -5,7 +5,7 @@ package it.polito.oma.etp.solver;
  */
 public class ExamPair implements Comparable<ExamPair> {
 	private final int exam1, exam2;
-	private final Float conflictCoefficient;
+	private final float conflictCoefficient;
 
 	public ExamPair(int exam1, int exam2, float conflictCoefficient) {
 		if(exam1 == exam2) {
@@ -55,7 +55,7 @@ public class ExamPair implements Comparable<ExamPair> {
 	// Ordering
 	@Override
 	public int compareTo(ExamPair otherExamPair) {
-		return Float.valueOf(otherExamPair.conflictCoefficient).compareTo(conflictCoefficient);
+		return Float.compare(otherExamPair.conflictCoefficient, conflictCoefficient);
 		//return Float.valueOf(conflictCoefficient).compareTo(otherExamPair.conflictCoefficient);
 	}
 
@@ -10,6 +10,7 @@ import java.util.Set;
 import it.polito.oma.etp.reader.InstanceData;
 import it.polito.oma.etp.solver.initialization.InitializationSolution;
 import it.polito.oma.etp.solver.optimization.OptimizationSolution;
+import it.polito.oma.etp.solver.telemetry.SolverStatistics;
 
 public abstract class GeneticAlgorithm {
 	protected InstanceData instance;
@@ -17,7 +18,12 @@ public abstract class GeneticAlgorithm {
 	protected Population population;
 	protected int iteration = 0;
 	protected Solution bestSolution;
-	private static boolean TIMER_EXPIRED = false;
+	
+	/**
+	 * Progress counters of the job this algorithm belongs to,
+	 * null if progress is not recorded.
+	 */
+	private SolverStatistics statistics;
 	
 	/**
 	 * Children mutation is made following
@@ -25,6 +31,14 @@ public abstract class GeneticAlgorithm {
 	 */
 	protected double mutationProbability;
 	
+	/**
+	 * Crossover repair work buffer: element [t] is equal to repairVisit
+	 * if timeslot t is forbidden to the exam being repaired, so that the
+	 * buffer never has to be cleared.
+	 */
+	private int[] forbiddenTimeslots;
+	private int repairVisit;
+	
 	/**
 	 * Genetic Algorithm abstract class constructor, initializing
 	 * properties common to all Genetic Algorithms specific
@@ -39,9 +53,26 @@ public abstract class GeneticAlgorithm {
 
 		// Initializing the mutation probability to its initial value
 		mutationProbability = settings.mutationProbabilityInitialValue;
+		
+		forbiddenTimeslots = new int[instance.getTmax()];
 	}
 
-	public Solution solve() {
+	/**
+	 * Makes this Genetic Algorithm report its progress once per generation.
+	 * @param statistics	progress counters of the job.
+	 */
+	public void setStatistics(SolverStatistics statistics) {
+		this.statistics = statistics;
+	}
+	
+	/**
+	 * Evolves the population until a solution with null fitness
+	 * is found or the run is stopped.
+	 * @param cancellationToken		stopping condition of this run, checked
+	 * 								once per generation.
+	 * @return						the best solution found so far.
+	 */
+	public Solution solve(CancellationToken cancellationToken) {
 		// Population generation
 
 		bestSolution = population.getBestSolution();
@@ -50,10 +81,10 @@ public abstract class GeneticAlgorithm {
 		 */
 		Collections.sort(population.getChromosomes());
 		
-		/*TODO debug*/ System.out.println("Population: " +Arrays.toString(population.getChromosomes().toArray()));
+		/*TODO debug*/ //System.out.println("Population: " +Arrays.toString(population.getChromosomes().toArray()));
 				
-		while(bestSolution.getFitness() > 0 && !TIMER_EXPIRED) {
-			/*TODO debug (iteration)*/System.out.println("\n***** Iteration " + iteration + " *****");
+		while(bestSolution.getFitness() > 0 && !cancellationToken.isCancelled()) {
+			/*TODO debug (iteration)*/ //System.out.println("\n***** Iteration " + iteration + " *****");
 
 			if(population.getBestSolution().getFitness() > population.getWorstSolution().getFitness())
 				throw new AssertionError(
@@ -81,11 +112,12 @@ public abstract class GeneticAlgorithm {
 				//	parents.add(selectRandomParent(CRP, population));
 				parents = selectRandomChromosome(CRP, population, settings.numberOfReproductiveParents);
 						
-				/*TODO debug*/ System.out.println("Parents: "+parents);
+				/*TODO debug*/ //System.out.println("Parents: "+parents);
 			}
 			// Deterministic parent selection using their fitness
 			else {
 				// Best parents (having a low fitness value) are selected for reproduction 
+				Collections.sort(population.getChromosomes());
 				for(int i = 0; i < settings.numberOfReproductiveParents; ++i)
 					parents.add(population.getChromosomes().get(i));
 			}
@@ -103,7 +135,7 @@ public abstract class GeneticAlgorithm {
 			//TODO implement algorithm to generate more then 2 children
 			children.add(crossover(parents.get(0), parents.get(1)));
 			children.add(crossover(parents.get(1), parents.get(0)));
-			/*TODO debug*/System.out.println("Childrens: " + children);
+			/*TODO debug*/ //System.out.println("Childrens: " + children);
 			
 			//********************* end crossover *************************************
 
@@ -124,14 +156,14 @@ public abstract class GeneticAlgorithm {
 			}
 			else
 				/*TODO implement*/throw new AssertionError("Random chromosomes to kill selection still to be implemented");
-			/*TODO debug*/System.out.println("Chromosomes killed: " + chromosomesToKill);
+			/*TODO debug*/ //System.out.println("Chromosomes killed: " + chromosomesToKill);
 			
 			for(Solution chromosomes : chromosomesToKill)
 				population.delete(chromosomes);
 			
 			population.updateWorstAndBestSolution();
 			
-			/*TODO debug*/System.out.println("New population: " + Arrays.toString(population.getChromosomes().toArray()) + "\n");
+			/*TODO debug*/ //System.out.println("New population: " + Arrays.toString(population.getChromosomes().toArray()) + "\n");
 			
 			if(iteration % settings.cloningManagementThreshold == 0) {
 				checkClones();
@@ -143,8 +175,19 @@ public abstract class GeneticAlgorithm {
 			
 			if(population.getBestSolution().getFitness() < bestSolution.getFitness()) {
 				bestSolution = population.getBestSolution();
-				System.out.println("Best solution found until now :" + bestSolution);
+				/*TODO debug*/ //System.out.println("Best solution found until now :" + bestSolution);
+				
+				if(statistics != null)
+					statistics.bestSolutionFound(getClass().getSimpleName(), bestSolution.getFitness());
 			}
+			
+			if(statistics != null)
+				statistics.generationCompleted(
+					iteration,
+					population.getBestSolution().getFitness(),
+					population.getWorstSolution().getFitness(),
+					mutationProbability
+				);
 
 		} // while end
 		
@@ -178,97 +221,80 @@ public abstract class GeneticAlgorithm {
 	}
 	
 	/*
-	 * The first parent give the genes inside the cutting points, the second
-	 * is scanned in order to implement the ordered crossover.
+	 * The first parent give the genes outside the cutting points, the second
+	 * one the genes inside them, which are then repaired.
 	 * 
-	 * @param parent1 the parent that give the genes inside the cutting points
-	 * @param parent2 the parent that is scanned in order to implement the ordered crossover.
+	 * @param parent1 the parent that give the genes outside the cutting points
+	 * @param parent2 the parent that give the genes inside the cutting points.
 	 * @return children the children generated by the algorithm.
 	 */
 	public Solution crossover(Solution parent1, Solution parent2) {
-		// Child object initialization
-		Solution child = null;
+		int Tmax = instance.getTmax();
+		int[] conflictIndex = instance.getConflictIndex();
+		int[] conflictingExams = instance.getConflictingExams();
+		int firstCuttingPoint = settings.whereToCut[0];
+		int lastCuttingPoint = settings.whereToCut[1];
 		
 		// Child schedule initialization
-		int[] childSchedule = new int[instance.getE()];
-		
-		// Retrieving parent schedules
-		int[] parentSchedule1 = parent1.schedule;
-		int[] parentSchedule2 = parent2.schedule;
+		int[] childSchedule = Utility.cloneArray(parent1.schedule);
+		System.arraycopy(
+			parent2.schedule, firstCuttingPoint,
+			childSchedule, firstCuttingPoint,
+			lastCuttingPoint - firstCuttingPoint + 1
+		);
 		
-		for (int examIterator = 0; examIterator < instance.getE(); examIterator++) {
-			if(examIterator >= settings.whereToCut[0] &&
-			   examIterator <= settings.whereToCut[1])
-					childSchedule[examIterator] = parentSchedule2[examIterator];
-			else
-				childSchedule[examIterator] = parentSchedule1[examIterator];		
-		}
-		//TODO debug
-		//System.out.println("parent1 schedule: " +Arrays.toString(parentSchedule1));
-		//System.out.println("parent2 schedule: " +Arrays.toString(parentSchedule2));
-		//System.out.println("child schedule: " +Arrays.toString(childSchedule));
-	
-		//TODO debug
-		System.out.println("starting creossover");
+		/*TODO debug*/ //System.out.println("starting crossover");
 		
-		for (int examsInsideCut = settings.whereToCut[0]; examsInsideCut <= settings.whereToCut[1]; examsInsideCut++) {
-			int childExamIterator = 0;
-			
-			// counts how many iteration the loop has done
-			int loopIteration = 0;
-			// threshold: when the algorithm reaches this value, the crossover is stopped and a new couple of parents is looked for.
-			int maxLoopIteration = instance.getE()*10;
+		/**
+		 * Genes outside the cutting points do not conflict with each other, as
+		 * in the first parent. Each gene inside them is checked, in a single
+		 * pass over its conflicting exams, against those genes and the ones
+		 * inside already repaired: if needed, it is moved to the next timeslot
+		 * in which none of its conflicting exams is scheduled.
+		 */
+		for(int exam = firstCuttingPoint; exam <= lastCuttingPoint; ++exam) {
+			// Timeslots forbidden to previous exams become allowed at once
+			if(++repairVisit == 0) {
+				Arrays.fill(forbiddenTimeslots, 0);
+				repairVisit = 1;
+			}
 			
-			while(childExamIterator < childSchedule.length) {
-				++loopIteration;
+			for(int c = conflictIndex[exam]; c < conflictIndex[exam + 1]; ++c) {
+				int otherExam = conflictingExams[c];
 				
-				if(loopIteration >= maxLoopIteration) {
-					if(settings.initializationProblem)
-						child = new InitializationSolution(parent1);
-					else
-						child = new OptimizationSolution((OptimizationSolution)parent1);
-					
-					mutate(child, (int)settings.mutatingGenesPercentage*instance.getE());
-					
-					//TODO debug
-					System.out.println("fail crossover -> mutation execution");
-					return child;
-				}
-			//for (int childExamIterator = 0; 
-				//	childExamIterator < childSchedule.length; 
-				//	childExamIterator++) {
+				if(otherExam < exam || otherExam > lastCuttingPoint)
+					forbiddenTimeslots[childSchedule[otherExam]] = repairVisit;
+			}
 			
-				if(childExamIterator!=examsInsideCut) {
-					if(instance.getN()[examsInsideCut][childExamIterator]>0 &&
-								childSchedule[childExamIterator]==childSchedule[examsInsideCut]) {
-								//there is an infeasible pair, so we increment the value of the examsInsideCut timeSlot
-								//in order to avoid new infeasible pairs between exams outside the cutted point.
-								childSchedule[examsInsideCut] = (childSchedule[examsInsideCut]+1) % instance.getTmax();
-								childExamIterator = 0;
-								//TODO debug
-								System.out.println("pair infeasible");
-					}
-					else //the pair childExamIterator-examsInsideCut is feasible
-						childExamIterator++;
-				}
-				else //childExamIterator=examsInsideCut so we only increment the iterator
-					childExamIterator++;
-
+			int timeslot = childSchedule[exam];
+			for(int t = 1; t < Tmax && forbiddenTimeslots[timeslot] == repairVisit; ++t)
+				timeslot = (childSchedule[exam] + t) % Tmax;
+			
+			// No timeslot is left to this exam: the first parent is mutated instead
+			if(forbiddenTimeslots[timeslot] == repairVisit) {
+				Solution child;
+				if(settings.initializationProblem)
+					child = new InitializationSolution(parent1);
+				else
+					child = new OptimizationSolution((OptimizationSolution)parent1);
+				
+				mutate(child, (int)(settings.mutatingGenesPercentage * instance.getE()));
+				
+				/*TODO debug*/ //System.out.println("fail crossover -> mutation execution");
+				return child;
 			}
 			
+			childSchedule[exam] = timeslot;
 		}
 		
-		//TODO debug
-		System.out.println("end crossover");
+		/*TODO debug*/ //System.out.println("end crossover");
 		
-		int[][] te = generateTe(childSchedule);
-		   if(!settings.initializationProblem)
-			   child = new OptimizationSolution(instance, te);
-		   else
-			   child = new InitializationSolution(instance, te);
-				
-		return child;
-	}				 
+		// Children are built in O(conflicting pairs) time from their schedule
+		if(!settings.initializationProblem)
+			return new OptimizationSolution(instance, childSchedule);
+		else
+			return new InitializationSolution(instance, childSchedule);
+	}
 	
 	/**
 	 * Performs the mutation operator on the specified chromosome.
@@ -279,7 +305,7 @@ public abstract class GeneticAlgorithm {
 		// Set of already-mutated gene indexes
 		
 				//TODO debug 
-				System.out.println("start mutate");
+				/*TODO debug*/ //System.out.println("start mutate");
 				
 				Set<Integer> mutatedGenesIndexes = new HashSet<Integer>(instance.getE());
 				
@@ -304,24 +330,17 @@ public abstract class GeneticAlgorithm {
 					while(!newFeasibleGeneValueFound) {
 						// New gene value generation
 						
-						try {
-							/**
-							 * Performing the move: if the corresponding neighbor is infeasible, an
-							 * exception is thrown
-							 */
-							mutatingChromosome.move(mutatingChromosome.getNeighbor(mutatingGeneIndex, newGeneValue));
+						float neighborFitness = mutatingChromosome.evaluateMove(mutatingGeneIndex, newGeneValue);
+						
+						if(neighborFitness != Solution.INFEASIBLE_MOVE) {
+							// Performing the move, since the corresponding neighbor is feasible
+							mutatingChromosome.move(new Neighbor(mutatingGeneIndex, newGeneValue, neighborFitness));
 							
 							//if the exam is correctly rescheduled we add the exam to mutatedGenesIndexes
 							mutatedGenesIndexes.add(mutatingGeneIndex);
-							/**
-							 * If the code reaches this point, the corresponding neighbor is feasible,
-							 * so the move has been performed successfully
-							 */
-							newFeasibleGeneValueFound = true;
-							
 							
-						} catch(InvalidMoveException e) {
-							//e.printStackTrace();
+							newFeasibleGeneValueFound = true;
+						} else {
 							/**
 							 *  The neighbor corresponding to the move was not feasible, a new
 							 *  random gene value has to be computed
@@ -332,12 +351,11 @@ public abstract class GeneticAlgorithm {
 								--i;
 								break;
 							}
-							continue;
 						}
 					}
 				}
 				//TODO debug 
-				System.out.println("end mutate");
+				/*TODO debug*/ //System.out.println("end mutate");
 	}
 	
 	/*
@@ -352,7 +370,7 @@ public abstract class GeneticAlgorithm {
 	
 	private void generateRandomCuttingPoints() {
 		int firstRandomCuttingPoint = Utility.getRandomInt(1, instance.getE()-1);
-		/*TODO debug*/ System.out.println("first random cutting point " + firstRandomCuttingPoint);
+		/*TODO debug*/ //System.out.println("first random cutting point " + firstRandomCuttingPoint);
 		int[] cuttingPoints = new int[2];
 		if(settings.cuttingPointsNumber == 1) {
 			cuttingPoints[0] = 0;
@@ -363,7 +381,7 @@ public abstract class GeneticAlgorithm {
 			while (secondRandomCuttingPoint == firstRandomCuttingPoint) {
 				secondRandomCuttingPoint = Utility.getRandomInt(1, instance.getE());
 			}
-			/*TODO debug*/ System.out.println("second random cutting point " + secondRandomCuttingPoint);
+			/*TODO debug*/ //System.out.println("second random cutting point " + secondRandomCuttingPoint);
 
 			
 			if(firstRandomCuttingPoint < secondRandomCuttingPoint) {
@@ -373,7 +391,7 @@ public abstract class GeneticAlgorithm {
 
 		}
 		settings.whereToCut = cuttingPoints;
-		/*TODO debug*/System.out.println("random cutting points: "+Arrays.toString(settings.whereToCut));
+		/*TODO debug*/ //System.out.println("random cutting points: "+Arrays.toString(settings.whereToCut));
 
 	}
 	/**
@@ -407,21 +425,12 @@ public abstract class GeneticAlgorithm {
 			for(; i < cloneIndexes.size(); i++) {
 				mutate(p.get(cloneIndexes.get(i)), settings.genesToMutateIfClones);
 			}
+			
+			// Clones have been mutated in place
+			population.updateWorstAndBestSolution();
 		}
 	}
 	
-	/*
-	 * generate the te matrix starting from the schedule
-	 * @param schedule
-	 */
-	private int[][] generateTe(int[] schedule){
-		int[][] te = new int[instance.getTmax()][instance.getE()];
-			for (int exam = 0; exam < instance.getE(); exam++) {
-				te[schedule[exam]][exam] = 1;
-			}		
-		return te;
-		}
-	
 	/**
 	 * 
 	 * @param childSchedule			currently-generating child's schedule.
@@ -437,7 +446,7 @@ public abstract class GeneticAlgorithm {
 		
 		while(examIndexIterator != childExamToSet) {
 			if(	// If the two exams have more than one student enrolled in both of them 
-				instance.getN()[examIndexIterator][childExamToSet] > 0 &&
+				instance.getConflictSlot(examIndexIterator, childExamToSet) >= 0 &&
 				
 				// They will be placed in the same timeslot
 				childSchedule[examIndexIterator] == parentValue
@@ -476,7 +485,7 @@ public abstract class GeneticAlgorithm {
 		}
 		CRP[population.getChromosomes().size() - 1] = 1;
 		
-		/*TODO debug*/System.out.println("CRP: "+Arrays.toString(CRP));
+		/*TODO debug*/ //System.out.println("CRP: "+Arrays.toString(CRP));
 		
 		return CRP;
 	}
@@ -496,7 +505,7 @@ public abstract class GeneticAlgorithm {
 		}
 		CKP[population.getChromosomes().size() - 1] = 1;
 		
-		/*TODO debug*/System.out.println("CKP: "+Arrays.toString(CKP));
+		/*TODO debug*/ //System.out.println("CKP: "+Arrays.toString(CKP));
 		
 		return CKP;
 	}
@@ -549,9 +558,4 @@ public abstract class GeneticAlgorithm {
 		
 		return chromosomes;
 	}
-	
-	// Stopping condition
-	public static void stopExecution() {
-		TIMER_EXPIRED = true;
-	}
 }
@@ -0,0 +1,251 @@
+package it.polito.oma.etp.solver;
+
+import java.util.Arrays;
+
+/**
+ * Reusable work buffer holding a Kempe chain: starting from an exam
+ * and a target timeslot, the connected component of the conflict graph
+ * restricted to the exams scheduled either in the exam's timeslot or in
+ * the target one. Exchanging the timeslots of all exams in the chain
+ * keeps a feasible solution feasible, whatever the conflicts involved.
+ * A buffer is meant to be used by one thread at a time.
+ */
+public class KempeChain {
+	/**
+	 * Chain exams, in breadth-first order, the starting exam first.
+	 * The array doubles as the queue of the breadth-first search.
+	 */
+	private final int[] exams;
+	private int size;
+	
+	/**
+	 * Element [i] is the timeslot in which the i-th chain exam would end.
+	 */
+	private final int[] newTimeslots;
+	
+	/**
+	 * Timeslot of the starting exam and target timeslot.
+	 */
+	private int timeslot1, timeslot2;
+	
+	/**
+	 * Students enrolled in pairs of conflicting chain exams, each pair
+	 * being counted once for each of its exams.
+	 */
+	private long internalConflictWeight;
+	
+	/**
+	 * Element [e] is equal to visit if exam e belongs to the current
+	 * chain, so that the buffer never has to be cleared.
+	 */
+	private final int[] visits;
+	private int visit;
+	
+	/**
+	 * Chains already evaluated on the same solution: the chain moving
+	 * exam e to timeslot t is the same for all of its exams, so element
+	 * [e * Tmax + t] contains the chain identifier, valid if not lower
+	 * than firstChainId, and chainFitnesses[id - firstChainId] its fitness.
+	 * Identifiers of previous solutions become stale at once.
+	 */
+	private final int Tmax;
+	private final int[] chainIds;
+	private float[] chainFitnesses = new float[16];
+	private int firstChainId = 1, nextChainId = 1;
+	
+	/**
+	 * Exploration whose chains are cached.
+	 */
+	private int cachedExploration;
+	
+	/**
+	 * @param E		number of exams of the instance.
+	 */
+	public KempeChain(int E) {
+		this(E, 0);
+	}
+	
+	/**
+	 * @param E		number of exams of the instance.
+	 * @param Tmax	number of timeslots of the instance, 0 if chains
+	 * 				are not going to be cached.
+	 */
+	public KempeChain(int E, int Tmax) {
+		exams = new int[E];
+		newTimeslots = new int[E];
+		visits = new int[E];
+		this.Tmax = Tmax;
+		chainIds = new int[E * Tmax];
+	}
+	
+	/**
+	 * Discovers the chain moving the given exam to the given timeslot,
+	 * visiting only the conflicts of the chain exams. The search stops
+	 * as soon as the chain exceeds the given size.
+	 * @param solution		solution whose schedule is explored.
+	 * @param exam			starting exam.
+	 * @param newTimeslot	timeslot in which the starting exam would end.
+	 * @param maxSize		maximum number of exams in the chain.
+	 * @return				true if the whole chain has been discovered,
+	 * 						false if it contains more than maxSize exams.
+	 */
+	public boolean build(Solution solution, int exam, int newTimeslot, int maxSize) {
+		int[] schedule = solution.schedule;
+		int[] conflictIndex = solution.instance.getConflictIndex();
+		int[] conflictingExams = solution.instance.getConflictingExams();
+		int[] conflictWeights = solution.instance.getConflictWeights();
+		
+		timeslot1 = schedule[exam];
+		timeslot2 = newTimeslot;
+		
+		// Marks of previous chains become stale at once
+		if(++visit == 0) {
+			Arrays.fill(visits, 0);
+			visit = 1;
+		}
+		
+		exams[0] = exam;
+		newTimeslots[0] = newTimeslot;
+		visits[exam] = visit;
+		size = 1;
+		internalConflictWeight = 0;
+		
+		for(int head = 0; head < size; ++head) {
+			int chainExam = exams[head];
+			
+			// Exams in conflict with a chain exam, in the other timeslot of the pair
+			int otherTimeslot = newTimeslots[head];
+			for(int c = conflictIndex[chainExam]; c < conflictIndex[chainExam + 1]; ++c) {
+				int otherExam = conflictingExams[c];
+				
+				if(schedule[otherExam] != otherTimeslot)
+					continue;
+				
+				internalConflictWeight += conflictWeights[c];
+				
+				if(visits[otherExam] != visit) {
+					visits[otherExam] = visit;
+					exams[size] = otherExam;
+					newTimeslots[size] = schedule[chainExam];
+					
+					if(++size > maxSize)
+						return false;
+				}
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Forgets the cached chains if they have been evaluated during
+	 * another exploration, i.e. possibly on another solution.
+	 * @param exploration	identifier of the current exploration.
+	 */
+	public void prepareCache(int exploration) {
+		if(exploration == cachedExploration)
+			return;
+		
+		cachedExploration = exploration;
+		
+		// Identifiers must not overflow before the next exploration, caching at most one chain per element
+		if(nextChainId > Integer.MAX_VALUE - chainIds.length) {
+			Arrays.fill(chainIds, 0);
+			nextChainId = 1;
+		}
+		
+		firstChainId = nextChainId;
+	}
+	
+	/**
+	 * @param exam			exam starting the chain.
+	 * @param newTimeslot	timeslot in which the exam would end.
+	 * @return				true if the chain moving the given exam to the given
+	 * 						timeslot has been cached since the last prepareCache().
+	 */
+	public boolean isCached(int exam, int newTimeslot) {
+		return chainIds[exam * Tmax + newTimeslot] >= firstChainId;
+	}
+	
+	/**
+	 * @param exam			exam starting a cached chain.
+	 * @param newTimeslot	timeslot in which the exam would end.
+	 * @return				the fitness cached for the chain.
+	 */
+	public float getCachedFitness(int exam, int newTimeslot) {
+		return chainFitnesses[chainIds[exam * Tmax + newTimeslot] - firstChainId];
+	}
+	
+	/**
+	 * Caches the fitness of the last chain built, for all of its exams.
+	 * Chains exceeding the maximum size are cached too, through the
+	 * exams discovered before the search stopped.
+	 * @param fitness	fitness of the chain, or any value telling it
+	 * 					must be skipped.
+	 */
+	public void cache(float fitness) {
+		int chainId = nextChainId++;
+		
+		if(chainId - firstChainId == chainFitnesses.length)
+			chainFitnesses = Arrays.copyOf(chainFitnesses, chainFitnesses.length * 2);
+		chainFitnesses[chainId - firstChainId] = fitness;
+		
+		for(int i = 0; i < size; ++i)
+			chainIds[exams[i] * Tmax + newTimeslots[i]] = chainId;
+	}
+	
+	/**
+	 * @param exam		exam of the instance.
+	 * @return			true if the exam belongs to the chain.
+	 */
+	public boolean contains(int exam) {
+		return visits[exam] == visit;
+	}
+	
+	/**
+	 * Pairs of conflicting chain exams are scheduled in different timeslots
+	 * of the pair, hence their distance does not change.
+	 * @return	students enrolled in pairs of conflicting chain exams, each
+	 * 			pair being counted once for each of its exams.
+	 */
+	public long getInternalConflictWeight() {
+		return internalConflictWeight;
+	}
+	
+	/**
+	 * @return	number of exams in the chain.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * @param i		position in the chain, from 0 to size() - 1.
+	 * @return		the i-th exam of the chain.
+	 */
+	public int getExam(int i) {
+		return exams[i];
+	}
+	
+	/**
+	 * @param i		position in the chain, from 0 to size() - 1.
+	 * @return		the timeslot in which the i-th exam of the chain would end.
+	 */
+	public int getNewTimeslot(int i) {
+		return newTimeslots[i];
+	}
+	
+	/**
+	 * @return	timeslot of the starting exam.
+	 */
+	public int getTimeslot1() {
+		return timeslot1;
+	}
+	
+	/**
+	 * @return	timeslot in which the starting exam would end.
+	 */
+	public int getTimeslot2() {
+		return timeslot2;
+	}
+}
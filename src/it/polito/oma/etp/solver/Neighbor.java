@@ -1,22 +1,73 @@
 package it.polito.oma.etp.solver;
 
+/**
+ * Move leading from a solution to one of its neighbors: either the
+ * relocation of a single exam to another timeslot, the exchange of the
+ * timeslots of two exams if a swapped exam is set, or the move of the
+ * Kempe chain starting from the moving exam towards the new timeslot.
+ */
 public class Neighbor implements Comparable<Neighbor> {
 	private int movingExam;
 	private int newTimeslot;
-	protected Float fitness;
+	protected float fitness;
+	
+	/**
+	 * Exam taking the moving exam's timeslot in a swap move, and that
+	 * timeslot; both are -1 for relocation moves.
+	 */
+	private int swappedExam = -1;
+	private int swappedExamNewTimeslot = -1;
+	
+	/**
+	 * True if the whole Kempe chain of the moving exam is moved.
+	 */
+	private boolean kempeChain;
  	
 	public Neighbor() {
 	}
 	
-	public Neighbor(int movingExam, int newTimeslot, Float fitness) {
+	public Neighbor(int movingExam, int newTimeslot, float fitness) {
 		this.movingExam = movingExam;
 		this.newTimeslot = newTimeslot;
 		
 		this.fitness = fitness;
 	}
 	
+	/**
+	 * Constructor for moves whose fitness value is not known,
+	 * such as Tabu List entries.
+	 */
 	public Neighbor(int movingExam, int newTimeslot) {
-		this(movingExam, newTimeslot, null);
+		this(movingExam, newTimeslot, Float.NaN);
+	}
+	
+	/**
+	 * Swap move constructor.
+	 * @param movingExam				first exam, moving to the second exam's timeslot.
+	 * @param newTimeslot				timeslot of the second exam.
+	 * @param swappedExam				second exam, moving to the first exam's timeslot.
+	 * @param swappedExamNewTimeslot	timeslot of the first exam.
+	 * @param fitness					fitness value after the swap.
+	 */
+	public Neighbor(int movingExam, int newTimeslot, int swappedExam, int swappedExamNewTimeslot, float fitness) {
+		this(movingExam, newTimeslot, fitness);
+		
+		this.swappedExam = swappedExam;
+		this.swappedExamNewTimeslot = swappedExamNewTimeslot;
+	}
+	
+	/**
+	 * Kempe chain move constructor.
+	 * @param movingExam	exam starting the chain.
+	 * @param newTimeslot	timeslot in which it will end.
+	 * @param fitness		fitness value after moving the chain.
+	 * @param kempeChain	true if the Kempe chain of the moving exam
+	 * 						is moved, false for a simple relocation.
+	 */
+	public Neighbor(int movingExam, int newTimeslot, float fitness, boolean kempeChain) {
+		this(movingExam, newTimeslot, fitness);
+		
+		this.kempeChain = kempeChain;
 	}
 	
 	/*public void update(Neighbor neighbor) {
@@ -35,19 +86,25 @@ public class Neighbor implements Comparable<Neighbor> {
 		
 		return	movingExam == otherNeighbor.movingExam
 					&&
-				newTimeslot == otherNeighbor.newTimeslot;
+				newTimeslot == otherNeighbor.newTimeslot
+					&&
+				swappedExam == otherNeighbor.swappedExam
+					&&
+				kempeChain == otherNeighbor.kempeChain;
 	}
 
 	// Ordering (increasing fitness)
 	@Override
 	public int compareTo(Neighbor otherNeighbor) {
-		return Float.valueOf(fitness).compareTo(Float.valueOf(otherNeighbor.fitness));
+		return Float.compare(fitness, otherNeighbor.fitness);
 	}
 	
 	@Override
 	public String toString() {
 		return	"<movingExam = " + movingExam +
 				", newTimeslot = " + newTimeslot +
+				((isSwap()) ? ", swappedExam = " + swappedExam : "") +
+				((kempeChain) ? ", Kempe chain" : "") +
 				", fitness = " + fitness + ">";
 	}
 	
@@ -62,4 +119,27 @@ public class Neighbor implements Comparable<Neighbor> {
 	public int getNewTimeslot() {
 		return newTimeslot;
 	}
+	
+	/**
+	 * @return	true if this move exchanges the timeslots of two exams.
+	 */
+	public boolean isSwap() {
+		return swappedExam != -1;
+	}
+	
+	/**
+	 * @return	true if this move exchanges the timeslots of all exams
+	 * 			in the Kempe chain of the moving exam.
+	 */
+	public boolean isKempeChain() {
+		return kempeChain;
+	}
+	
+	public int getSwappedExam() {
+		return swappedExam;
+	}
+	
+	public int getSwappedExamNewTimeslot() {
+		return swappedExamNewTimeslot;
+	}
 }
\ No newline at end of file
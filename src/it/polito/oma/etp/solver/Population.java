@@ -2,7 +2,6 @@ package it.polito.oma.etp.solver;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 
 import it.polito.oma.etp.reader.InstanceData;
 
@@ -13,8 +12,15 @@ public abstract class Population {
 	protected float totalFitness;
 	protected float totalInverseFitness;
 	
-	protected double bestSolution;
-	protected double worstSolution;
+	/**
+	 * Chromosomes having the lowest and the highest fitness value,
+	 * updated as chromosomes are added so that they are read in
+	 * constant time. Removing one of them just marks both as
+	 * outdated: they are searched again only when needed.
+	 */
+	private Solution bestSolution;
+	private Solution worstSolution;
+	private boolean bestAndWorstSolutionOutdated;
 	
 	/**
 	 * Population abstract class constructor, initializing
@@ -38,6 +44,9 @@ public abstract class Population {
 		chromosomes.add(newChromosome);
 		totalInverseFitness += 1/newChromosome.getFitness();
 		totalFitness += newChromosome.getFitness();
+		
+		if(!bestAndWorstSolutionOutdated)
+			updateBestAndWorstSolution(newChromosome);
 	}
 	
 	/**
@@ -46,9 +55,17 @@ public abstract class Population {
 	 * @param killedChromosome	chromosome to be removed from the this population.
 	 */
 	public void delete(Solution killedChromosome) {
-		chromosomes.remove(killedChromosome);
-		totalInverseFitness -= 1/killedChromosome.getFitness();
-		totalFitness -= killedChromosome.getFitness();
+		int index = chromosomes.indexOf(killedChromosome);
+		if(index == -1)
+			return;
+		
+		// Clones are equal, so the removed object may not be killedChromosome itself
+		Solution removedChromosome = chromosomes.remove(index);
+		totalInverseFitness -= 1/removedChromosome.getFitness();
+		totalFitness -= removedChromosome.getFitness();
+		
+		if(removedChromosome == bestSolution || removedChromosome == worstSolution)
+			bestAndWorstSolutionOutdated = true;
 	}
 	
 	/**
@@ -60,18 +77,47 @@ public abstract class Population {
 		delete(getSolution(killedChromosomeIndex));
 	}
 	
+	/**
+	 * Computes total fitness measures and best/worst solutions from
+	 * scratch: needed whenever chromosomes are modified in place
+	 * (e.g., mutated) instead of being added or deleted.
+	 */
 	protected void updateWorstAndBestSolution() {
-		// By now, there's not worst and better solution
-		bestSolution = Double.MAX_VALUE;
-		worstSolution = 0;
+		totalFitness = 0;
+		totalInverseFitness = 0;
 		
 		for(Solution chromosome: chromosomes) {
-			if(bestSolution > chromosome.getFitness())
-				bestSolution = chromosome.getFitness();
-			
-			if(worstSolution < chromosome.getFitness())
-				worstSolution = chromosome.getFitness();
+			totalInverseFitness += 1/chromosome.getFitness();
+			totalFitness += chromosome.getFitness();
 		}
+		
+		findBestAndWorstSolution();
+	}
+	
+	/**
+	 * Searches the best and worst solutions among all chromosomes.
+	 */
+	private void findBestAndWorstSolution() {
+		// By now, there's not worst and better solution
+		bestSolution = null;
+		worstSolution = null;
+		
+		for(Solution chromosome: chromosomes)
+			updateBestAndWorstSolution(chromosome);
+		
+		bestAndWorstSolutionOutdated = false;
+	}
+	
+	/**
+	 * Checks whether a chromosome is the new best or worst solution.
+	 * @param chromosome	chromosome belonging to this population.
+	 */
+	private void updateBestAndWorstSolution(Solution chromosome) {
+		if(bestSolution == null || chromosome.getFitness() < bestSolution.getFitness())
+			bestSolution = chromosome;
+		
+		if(worstSolution == null || chromosome.getFitness() > worstSolution.getFitness())
+			worstSolution = chromosome;
 	}
 
 	public ArrayList<Solution> getChromosomes() {
@@ -99,14 +145,26 @@ public abstract class Population {
 		return totalInverseFitness;
 	}
 	
+	/**
+	 * @return	the chromosome having the lowest fitness value,
+	 * 			or null if this population is empty.
+	 */
 	public Solution getBestSolution() {
-		Collections.sort(chromosomes);
-		return chromosomes.get(0);
+		if(bestAndWorstSolutionOutdated)
+			findBestAndWorstSolution();
+		
+		return bestSolution;
 	}
 	
+	/**
+	 * @return	the chromosome having the highest fitness value,
+	 * 			or null if this population is empty.
+	 */
 	public Solution getWorstSolution() {
-		Collections.sort(chromosomes);
-		return chromosomes.get(chromosomes.size()-1);	
+		if(bestAndWorstSolutionOutdated)
+			findBestAndWorstSolution();
+		
+		return worstSolution;
 	}
 	
 	@Override
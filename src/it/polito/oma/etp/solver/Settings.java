@@ -29,11 +29,18 @@ public class Settings {
 	 * False if it will be solved by the Tabu Search algorithm.
 	 */
 	public boolean geneticOptimization;
+	
+	/**
+	 * Seed from which the random streams used to build the initial
+	 * solutions are split, so that they can be reproduced.
+	 */
+	public long seed;
 
 	public Settings(boolean firstRandomSolution, 
 					int initialPopulationSize, 
 					boolean geneticInitialization,
-					boolean geneticOptimization
+					boolean geneticOptimization,
+					long seed
 	) {
 		this.firstRandomSolution = firstRandomSolution;
 		
@@ -45,6 +52,7 @@ public class Settings {
 		
 		this.geneticInitialization = geneticInitialization;
 		this.geneticOptimization = geneticOptimization;
+		this.seed = seed;
 	}
 
 	/**
@@ -58,5 +66,6 @@ public class Settings {
 		initialPopulationSize = otherSettings.initialPopulationSize;
 		geneticInitialization = otherSettings.geneticInitialization;
 		geneticOptimization = otherSettings.geneticOptimization;
+		seed = otherSettings.seed;
 	}
 }
@@ -2,10 +2,10 @@ package it.polito.oma.etp.solver;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.SplittableRandom;
 
 import it.polito.oma.etp.reader.InstanceData;
 import it.polito.oma.etp.solver.initialization.InitializationSolution;
-import it.polito.oma.etp.solver.optimization.OptimizationSolution;
 
 /**
  * Solution base-class both for the Tabu Search algorithm
@@ -14,28 +14,29 @@ import it.polito.oma.etp.solver.optimization.OptimizationSolution;
 public abstract class Solution implements Comparable<Solution>{
 
 	/**
-	 * Instance to which this solution refers to. 
+	 * Fitness value returned by evaluateMove() for moves leading
+	 * to an infeasible solution.
 	 */
-	protected InstanceData instance;
+	public static final float INFEASIBLE_MOVE = Float.POSITIVE_INFINITY;
 	
 	/**
-	 * Timeslots-exams matrix, having element [i][j] set to
-	 * 1 when exam j is scheduled in the i-th timeslot.
+	 * Instance to which this solution refers to. 
 	 */
-	protected int[][] te;
+	protected InstanceData instance;
 	
 	/**
-	 * Alternative 'te' representation.
 	 * For each exam i, schedule[i] contains the timeslot number
 	 * in which exam i has been scheduled.
-	 * This is used for distance calculations.
+	 * It is the only representation of the timetable kept by a
+	 * solution: the timeslots-exams matrix is derived from it
+	 * by getTe() when needed.
 	 */
 	protected int[] schedule;
 	
 	/**
 	 * Objective function value.
 	 */
-	protected Float fitness;
+	protected float fitness;
 	
 	/**
 	 * Exam pairs causing a penalty or an infeasibility,
@@ -43,15 +44,29 @@ public abstract class Solution implements Comparable<Solution>{
 	 */
 	protected ArrayList<ExamPair> penalizingPairs;
 	
+	/**
+	 * Undo log: exams moved since the oldest open checkpoint, along with
+	 * the timeslots they were moved from, in the order moves were applied.
+	 * Moves are logged only while at least one checkpoint is open.
+	 */
+	private int[] undoExams = new int[16];
+	private int[] undoTimeslots = new int[16];
+	private int undoLength;
+	private int openCheckpoints;
+	
+	/**
+	 * Work buffer used by move() to rebuild Kempe chains, created
+	 * the first time such a move is performed; copies do not share it.
+	 */
+	private KempeChain kempeChain;
+	
 	/**
 	 * Default constructor
-	 * @param te	time-slots exams matrix.
+	 * @param schedule	timeslot of each exam.
 	 */
-	protected Solution(InstanceData instance, int[][] te) {
+	protected Solution(InstanceData instance, int[] schedule) {
 		this.instance = instance;
-		this.te = te;
-		initializeSchedule();
-		initializeDistanceMatrix();
+		this.schedule = schedule;
 		initializePenalizingPairs();
 		initializeFitness();
 	}
@@ -64,7 +79,6 @@ public abstract class Solution implements Comparable<Solution>{
 		// Read-only object, no copying needed
 		instance = s.instance; 
 		
-		te = Utility.cloneMatrix(s.te);
 		schedule = Utility.cloneArray(s.schedule);
 		fitness = s.fitness;
 		penalizingPairs = new ArrayList<>(s.penalizingPairs);
@@ -75,46 +89,57 @@ public abstract class Solution implements Comparable<Solution>{
 	 * Every single field is computed while obtaining the
 	 * first infeasible solution. 
 	 * @param instance
-	 * @param te
 	 * @param schedule
 	 * @param fitness
 	 * @param penalizingPairs
 	 */
-	public Solution(InstanceData instance, int[][] te, int[] schedule, float fitness,
+	public Solution(InstanceData instance, int[] schedule, float fitness,
 			ArrayList<ExamPair> penalizingPairs) {
 		super();
 		this.instance = instance;
-		this.te = te;
 		this.schedule = schedule;
 		this.fitness = fitness;
 		this.penalizingPairs = penalizingPairs;
 	}
 	
-	protected abstract void initializeDistanceMatrix();
-	
 	// TODO JavaDoc
 	// TODO change name to generateInfeasibleSolution
 	public static InitializationSolution generateInfeasibleSolution(InstanceData instance, 
 																	boolean firstRandomSolution
+	) {
+		return generateInfeasibleSolution(instance, firstRandomSolution, new SplittableRandom());
+	}
+	
+	/**
+	 * generateInfeasibleSolution() overload drawing random timeslot orders
+	 * from the given stream, so that concurrently built solutions can be
+	 * reproduced.
+	 * @param random	random stream used if firstRandomSolution is true.
+	 */
+	public static InitializationSolution generateInfeasibleSolution(InstanceData instance, 
+																	boolean firstRandomSolution,
+																	SplittableRandom random
 	) {
 		/*TODO debug*///System.out.println("Generating infeasible solution...");
 		
 		// Instance data
 		int E = instance.getE();
-		int N[][] = instance.getN();
 		int Tmax = instance.getTmax();
+		int words = instance.getBitsetWords();
 		
 		// Infeasible solution fields
-		int te[][] = new int[Tmax][E];
 		int schedule[] = new int[E];
 		float fitness = 0;
 		ArrayList<ExamPair> penalizingPairs = new ArrayList<ExamPair>();
 		
-		// Array that counts how much exams are assigned in every timeslot
-		int texamsCounter[] = new int[Tmax];
+		// Bitset of the exams assigned to every timeslot
+		long timeslotExams[][] = new long[Tmax][words];
 		
-		// Array that stores which is the timeslot to visit first, according to its assigned exams
-		int timeslotOrder[] = new int[Tmax];
+		// Timeslots ordered by decreasing number of assigned exams
+		TimeslotsByExamsCount timeslotsByExamsCount = new TimeslotsByExamsCount(Tmax, E);
+		
+		// Array that stores which is the timeslot to visit first, when it is random
+		int timeslotOrder[] = null;
 		
 		// Boolean array that tells me if a given exam was already assigned in a timeslot.
 		int assignedExams[] = new int[E];
@@ -122,116 +147,73 @@ public abstract class Solution implements Comparable<Solution>{
 		// First exam e0
 		if(!firstRandomSolution) {
 			// first step: put e0 in t0
-			te[0][0] = 1;
 			schedule[0] = 0;
 			assignedExams[0] = 1;
-			texamsCounter[0]++;
+			timeslotExams[0][0] |= 1L;
+			timeslotsByExamsCount.increment(0);
 		}
 		else {
-			timeslotOrder = getTimeslotOrderRandomly(instance);
+			timeslotOrder = getTimeslotOrderRandomly(instance, random);
 		}
 		// cycling through all exams
 		for(int exam = (firstRandomSolution) ? 0 : 1; exam < E; exam++) {
-			
-				/* IN: texamsCounter, OUT: timeslotOrder*
-				 * Given in input the number of exams in every timeslot, it generates the timeslot ordering. */
-				if(!firstRandomSolution) {
-					timeslotOrder = getTimeslotOrderByExamsCount(instance, texamsCounter);
-				}
-				// cycling through all timeslots
+				long[] examConflicts = instance.getConflictBitset(exam);
+				
+				// cycling through all timeslots, starting from the one having most exams
 				for(int t = 0; t < Tmax; t++) {
+					int timeslot = (firstRandomSolution) ? timeslotOrder[t] : timeslotsByExamsCount.get(t);
 					
-					// Check if this exam was already assigned
-					if (assignedExams[exam] == 1)
-						break;
-						
-					// checking exams in conflict
-					boolean conflict = false;
-					
-					for(int conflictualExam = 0; conflictualExam < E; conflictualExam++) {
-						// are exam and conflictualExam in conflict? If not, search next exam for a conflict.
-						if (N[exam][conflictualExam] != 0) {
-							/* Here we know exam and conflictualExam are in conflict. I'd like to put exam in
-							 * timeslot, but first I check if conflictualExam is already in timeslot.
-							 * If it is there, I need to change timeslot, otherwise i look the next conflictualExam. */
-							if(te[timeslotOrder[t]][conflictualExam] == 1) {
-								conflict = true;
-								break;
-							}						
-						}
-					} // END FOR conflictualExam
-					
-					/* We are here for 2 motivations:
-					 * 1. we checked all conflictualExams and no one is in timeslot (conflict = false) -> write in timeslot.
-					 * 2. we found that a conflictualExam is in timeslot (conflict = true) -> look next timeslot */
-					if(conflict == false) {
-						te[timeslotOrder[t]][exam] = 1;
-						schedule[exam] = timeslotOrder[t];
+					/* I'd like to put exam in timeslot, but first I check if any exam in conflict with
+					 * it is already there: if so, I need to change timeslot, otherwise I write in timeslot. */
+					if(!intersect(examConflicts, timeslotExams[timeslot])) {
+						schedule[exam] = timeslot;
 						// This exam is assigned, do not assign it again.
 						assignedExams[exam] = 1;
-						texamsCounter[timeslotOrder[t]]++;
-					}		
-				} // END FOR timeslot (increasing slots)
+						timeslotExams[timeslot][exam >>> 6] |= 1L << exam;
+						timeslotsByExamsCount.increment(timeslot);
+						break;
+					}
+				} // END FOR timeslot
 						
 				/* If at the end of the timeslots checking, the exam can't still be assigned, we introuduce infeasibility.
 				 * We assign exam to the timeslot with less conflictual exams and update U accordingly. */
 				if (assignedExams[exam] == 0) {
-					
-					// number of conflicts for each timeslot
-					int[] numberOfConflicts = new int[Tmax];
-					
-					// cycling timeslots, counting the number of conflicts
-					for(int t = 0; t < Tmax; t++) {
-						numberOfConflicts[t] = 0;
-						
-						for(int confExam = 0; confExam < E; confExam++) {
-							
-							// are exam and confExam in conflict?
-							if(N[exam][confExam] > 0) {
-								// yes; is confExam in timeslot t? Increase the number of conflicts for that timeslot
-								if(te[t][confExam] == 1) {
-									numberOfConflicts[t]++;
-								}		
-							}
-						}// end FOR confExam
-						
-					}// end FOR timeslots
-					
 					int minConflicts = E;
 					int myTimeslot = 0;
 					// searching for the timeslot with the minimum of conflict for the given exam
-					for(int t = 0; t < numberOfConflicts.length; t++) {
-						if(numberOfConflicts[t] < minConflicts) {
-							minConflicts = numberOfConflicts[t];
+					for(int t = 0; t < Tmax; t++) {
+						// number of conflicts of this timeslot
+						int numberOfConflicts = 0;
+						for(int w = 0; w < words; w++)
+							numberOfConflicts += Long.bitCount(examConflicts[w] & timeslotExams[t][w]);
+						
+						if(numberOfConflicts < minConflicts) {
+							minConflicts = numberOfConflicts;
 							myTimeslot = t;
 						}
 					}
 					
+					// cycling through exams in conflict with exam allocated in myTimeslot
+					for(int w = 0; w < words; w++)
+						for(long bits = examConflicts[w] & timeslotExams[myTimeslot][w]; bits != 0; bits &= bits - 1) {
+							int e = (w << 6) + Long.numberOfTrailingZeros(bits);
+							
+							penalizingPairs.add(new ExamPair(e, exam));
+							++fitness;
+						}
+					
 					/* Now the exam is placed in the timeslot myTimeslot and the relative U elements are set at 1,
 					 * remembering it is introducing an infeasibility in the solution.*/
-					te[myTimeslot][exam] = 1;
 					schedule[exam] = myTimeslot;
 					assignedExams[exam] = 1;
-					texamsCounter[myTimeslot]++;
-					// cycling through exams in myTimeslot
-					for(int e = 0; e < E; e++) {
-						// looks only allocated exams
-						if(te[myTimeslot][e] == 1) {
-							// and check if they are conflictual with exam
-							if(N[exam][e] != 0) {
-								penalizingPairs.add(new ExamPair(e, exam));
-								++fitness;
-							}
-						}
-					}
-					
+					timeslotExams[myTimeslot][exam >>> 6] |= 1L << exam;
+					timeslotsByExamsCount.increment(myTimeslot);
 				}// end IF exam cannot be placed
 			
 		} // END FOR exam
 
 		return new InitializationSolution(
 			instance, 
-			te,
 			schedule,
 			fitness,
 			penalizingPairs
@@ -239,39 +221,86 @@ public abstract class Solution implements Comparable<Solution>{
 	}
 	
 	/**
-	 * Given an array containing the occurrencies of exams for every timeslot (index) it calculates 
-	 * the timeslot with most exams. Then returns an array with an increasing number of exams in the
-	 * following format:
-	 * 3, 6, 12, 5, 1, 0 ...
-	 * This means the algorithm will visit in order t3, t6, t12, --- 
-	 * @param TEcounter
-	 * @return
+	 * Word-wise intersection check between two bitsets.
+	 * @param bitset1	first bitset.
+	 * @param bitset2	second bitset, having the same length.
+	 * @return			true if the two bitsets have a common bit set.
 	 */
-	private static int[] getTimeslotOrderByExamsCount(InstanceData instance, int[] TEcounter) {
+	private static boolean intersect(long[] bitset1, long[] bitset2) {
+		for(int w = 0; w < bitset1.length; w++)
+			if((bitset1[w] & bitset2[w]) != 0)
+				return true;
 		
-		int tec[] = new int[TEcounter.length];
-		int orderTec[] = new int[instance.getTmax()];
-		int max = -1;
-		int ind = 0;
-		for(int i = 0; i < tec.length; i++)
-			tec[i] = TEcounter[i];
+		return false;
+	}
+	
+	/**
+	 * Bucket queue keeping timeslots ordered by decreasing number of
+	 * assigned exams. Since exams are only added, one at a time, a
+	 * timeslot gaining an exam is just swapped with the first timeslot
+	 * of its bucket, in constant time.
+	 */
+	private static class TimeslotsByExamsCount {
+		/**
+		 * Timeslots, from the one having most exams to the one having
+		 * the fewest. Timeslots having the same number of exams form
+		 * a bucket.
+		 */
+		private final int[] order;
 		
-		// For every element of the Timeslot Order array
-		for(int x = 0; x < instance.getTmax(); x++) {			
-			// For every element of the Exams in timeslot counter, find the max
-			for(int i = 0; i < instance.getTmax(); i++) {
-				
-				if(tec[i] > max) { 
-					max = tec[i];
-					ind = i;
-				}
+		/**
+		 * position[t] is the index of timeslot t inside order.
+		 */
+		private final int[] position;
+		
+		/**
+		 * examsCount[t] is the number of exams assigned to timeslot t.
+		 */
+		private final int[] examsCount;
+		
+		/**
+		 * bucketStart[c] is the number of timeslots having more than
+		 * c exams, i.e. where the bucket of timeslots having c exams
+		 * starts inside order.
+		 */
+		private final int[] bucketStart;
+		
+		TimeslotsByExamsCount(int Tmax, int E) {
+			order = new int[Tmax];
+			position = new int[Tmax];
+			examsCount = new int[Tmax];
+			bucketStart = new int[E + 1];
+			
+			for(int t = 0; t < Tmax; t++) {
+				order[t] = t;
+				position[t] = t;
 			}
-			max = -1;
-			tec[ind] = -1;
-			orderTec[x] = ind;
+		}
+		
+		/**
+		 * @param index	position in the ordering.
+		 * @return		the timeslot at the given position.
+		 */
+		int get(int index) {
+			return order[index];
+		}
+		
+		/**
+		 * Moves a timeslot to the bucket of timeslots having one
+		 * more exam.
+		 * @param timeslot	timeslot to which an exam has been assigned.
+		 */
+		void increment(int timeslot) {
+			int count = examsCount[timeslot]++;
+			int first = bucketStart[count]++;
+			int firstTimeslot = order[first];
 			
+			// Swapping the timeslot with the first one of its bucket
+			order[position[timeslot]] = firstTimeslot;
+			position[firstTimeslot] = position[timeslot];
+			order[first] = timeslot;
+			position[timeslot] = first;
 		}
-		return orderTec;
 	}
 	
 	/**
@@ -279,7 +308,7 @@ public abstract class Solution implements Comparable<Solution>{
 	 * This array will be used as a sequence of timeslot where to put 
 	 * the examined exam.
 	 */
-	private static int[] getTimeslotOrderRandomly(InstanceData instance) {
+	private static int[] getTimeslotOrderRandomly(InstanceData instance, SplittableRandom random) {
 		int tmax = instance.getTmax();
 		int[] orderTec = new int[tmax];
 		ArrayList<Integer> timeslotPool = new ArrayList<Integer>();
@@ -290,32 +319,13 @@ public abstract class Solution implements Comparable<Solution>{
 		// Filling orderTec with random timeslots from the pool.
 		int randomPoolIndex;
 		for(int i = 0; i < tmax; i++) {
-			randomPoolIndex = java.util.concurrent.ThreadLocalRandom.current().nextInt(0, timeslotPool.size());
+			randomPoolIndex = random.nextInt(timeslotPool.size());
 			orderTec[i] = timeslotPool.get(randomPoolIndex);
 			timeslotPool.remove(randomPoolIndex);
 		}
 		return orderTec;
 	}
 	
-	/**
-	 * Computes the schedule data structure from scratch, containing, 
-	 * for each exam, the timeslot number in which it has been assigned to.
-	 */
-	public void initializeSchedule() {
-		int E = instance.getE();
-		int tmax = instance.getTmax();
-		
-		// For each exam, the timeslot number is stored
-		schedule = new int[E];
-		
-		for(int j = 0; j < E; ++j) // for each exam
-			for(int i = 0; i < tmax; ++i) 
-				if(te[i][j] == 1) {
-					schedule[j] = i;
-					continue;
-				}
-	}
-	
 	/**
 	 * Computes the data structure containing exam pairs from 
 	 * scratch causing a penalty or an infeasibility depending 
@@ -324,22 +334,22 @@ public abstract class Solution implements Comparable<Solution>{
 	protected abstract void initializePenalizingPairs();
 	
 	/**
-	 * Updates the the data structure containing exam pairs starting
-	 * from the modifications brought by the neighbor passed
-	 * as argument, causing a penalty or an infeasibility depending 
+	 * Updates the the data structure containing exam pairs once an exam
+	 * has been moved, causing a penalty or an infeasibility depending 
 	 * on the Solution implementation.
-	 * @param neighbor
+	 * Implementations whose fitness depends on the pairs update it here.
+	 * @param movingExam	exam that has just been moved.
 	 */
-	protected abstract void updatePenalizingPairs(Neighbor neighbor);
+	protected abstract void updatePenalizingPairs(int movingExam);
 	
 	/**
-	 * Updates the schedule according to the move corresponding
-	 * to the neighbor specified as the first argument.
-	 * @param neighbor	move according to which the schedule
-	 * 					will be updated.
+	 * Moves an exam to another timeslot. Implementations keeping other
+	 * schedule-derived data (and the fitness) update them here.
+	 * @param movingExam	exam to be rescheduled, not already in newTimeslot.
+	 * @param newTimeslot	timeslot in which it will end.
 	 */
-	public void updateSchedule(Neighbor neighbor) {
-		schedule[neighbor.getMovingExam()] = neighbor.getNewTimeslot();
+	protected void updateSchedule(int movingExam, int newTimeslot) {
+		schedule[movingExam] = newTimeslot;
 	}
 	
 	/**
@@ -349,20 +359,81 @@ public abstract class Solution implements Comparable<Solution>{
 	protected abstract void initializeFitness();
 	
 	/**
-	 * Updates the te table according to a move.
-	 * @param movingExam	exam to be rescheduled
-	 * @param oldTimeslot	timeslot in which the exam was
-	 * @param newTimeslot	timeslot in which the exam will be
+	 * Computes the fitness value the solution would have after a move,
+	 * without creating any object: infeasible moves are signalled by
+	 * returning INFEASIBLE_MOVE instead of throwing an exception.
+	 * 
+	 * @param movingExam	exam that would be moved across the timetable.
+	 * @param newTimeslot	timeslot in which it would end.
+	 * @return				the neighbor fitness value, or INFEASIBLE_MOVE if
+	 * 						the move produces an infeasible result.
+	 */
+	public abstract float evaluateMove(int movingExam, int newTimeslot);
+	
+	/**
+	 * Computes the fitness value the solution would have after exchanging
+	 * the timeslots of two exams.
+	 * This implementation performs both relocations and reverts them
+	 * through the undo log, so it modifies the solution while running:
+	 * implementations rejecting infeasible moves, or evaluating moves
+	 * concurrently, override it.
+	 * @param exam1		first exam.
+	 * @param exam2		second exam.
+	 * @return			the neighbor fitness value, or INFEASIBLE_MOVE if the
+	 * 					swap produces an infeasible result or the two exams
+	 * 					share the same timeslot.
+	 */
+	public float evaluateSwap(int exam1, int exam2) {
+		int timeslot1 = schedule[exam1];
+		int timeslot2 = schedule[exam2];
+		
+		if(timeslot1 == timeslot2)
+			return INFEASIBLE_MOVE;
+		
+		int checkpoint = checkpoint();
+		move(exam1, timeslot2);
+		move(exam2, timeslot1);
+		float neighborFitness = fitness;
+		revert(checkpoint);
+		
+		return neighborFitness;
+	}
+	
+	/**
+	 * Computes the fitness value the solution would have after moving
+	 * a Kempe chain, which never makes a feasible solution infeasible.
+	 * This implementation moves the chain exams and reverts them through
+	 * the undo log, so it modifies the solution while running:
+	 * implementations evaluating moves concurrently override it.
+	 * @param chain		chain built on this solution.
+	 * @return			the neighbor fitness value.
 	 */
-	public void updateTe(int movingExam, int oldTimeslot, int newTimeslot) {
-		te[oldTimeslot][movingExam] = 0;
-		te[newTimeslot][movingExam] = 1;
+	public float evaluateKempeChain(KempeChain chain) {
+		int checkpoint = checkpoint();
+		moveKempeChain(chain);
+		float neighborFitness = fitness;
+		revert(checkpoint);
+		
+		return neighborFitness;
+	}
+	
+	/**
+	 * Prepares the solution for its neighbors being evaluated by several
+	 * threads at once, as long as it is not moved meanwhile.
+	 * This implementation does not support it, since evaluateSwap() and
+	 * evaluateKempeChain() modify the solution while running.
+	 * @return	true if evaluateMove(), evaluateSwap() and evaluateKempeChain()
+	 * 			only read the solution from now on.
+	 */
+	public boolean prepareConcurrentEvaluation() {
+		return false;
 	}
 	
 	/**
 	 * Retrieves neighbor information such as its fitness value and its corresponding
 	 * schedule, given a move to be done (i.e., the exam to be rescheduled and the new
 	 * timeslot in which the latter will be moved to).
+	 * Hot loops should rather use evaluateMove(), which does not throw.
 	 * 
 	 * @param movingExam				exam that would be moved across the timetable. 
 	 * @param newTimeslot				timeslot in which it would end. 
@@ -370,7 +441,17 @@ public abstract class Solution implements Comparable<Solution>{
 	 * 									new fitness value and its corresponding schedule
 	 * @throws InvalidMoveException		if the new move produces and infeasible result
 	 */
-	protected abstract Neighbor getNeighbor(int movingExam, int newTimeslot) throws InvalidMoveException;
+	public Neighbor getNeighbor(int movingExam, int newTimeslot) throws InvalidMoveException {
+		float neighborFitness = evaluateMove(movingExam, newTimeslot);
+		
+		if(neighborFitness == INFEASIBLE_MOVE)
+			throw new InvalidMoveException(
+				"exam " + (movingExam + 1) + " cannot be placed in timeslot number " + (newTimeslot + 1) +
+				" since it is in conflict with other exams scheduled there."
+			);
+		
+		return new Neighbor(movingExam, newTimeslot, neighborFitness);
+	}
 	
 	/**
 	 * Returns whether the solution represented by this object
@@ -379,26 +460,27 @@ public abstract class Solution implements Comparable<Solution>{
 	 */
 	public boolean isFeasible() {
 	    int E = instance.getE();
-	    int[][] N = instance.getN();
+	    int[] conflictIndex = instance.getConflictIndex();
+	    int[] conflictingExams = instance.getConflictingExams();
 	    
 	    boolean isFeasible = true;
 	    
-	    for(int t = 0; t < instance.getTmax(); ++t)
-	    	for(int exam1 = 0; exam1 < E; ++exam1)
-	    		for(int exam2 = 0; exam2 < E; ++exam2)
-	    			if(exam1 != exam2) {
-		    			if(N[exam1][exam2] > 0 && schedule[exam1] == schedule[exam2]) {
-		    				isFeasible = false;
-		    				/*TODO debug*/ //System.out.println("Conflictual exams " + exam1 + " and e"+exam2+" are in the same TM");
-		    			}
-	    			}
+	    for(int exam1 = 0; exam1 < E; ++exam1)
+	    	for(int c = conflictIndex[exam1]; c < conflictIndex[exam1 + 1]; ++c) {
+	    		int exam2 = conflictingExams[c];
+	    		
+	    		if(schedule[exam1] == schedule[exam2]) {
+	    			isFeasible = false;
+	    			/*TODO debug*/ //System.out.println("Conflictual exams " + exam1 + " and e"+exam2+" are in the same TM");
+	    		}
+	    	}
 	    return isFeasible;
 	}
 
 	// Ordering (increasing fitness)
 	@Override
 	public int compareTo(Solution otherSolution) {
-		return Float.valueOf(fitness).compareTo(Float.valueOf(otherSolution.getFitness()));
+		return Float.compare(fitness, otherSolution.fitness);
 	}
 	
 	/**
@@ -415,10 +497,27 @@ public abstract class Solution implements Comparable<Solution>{
 		return instance;
 	}
 	
+	/**
+	 * Derives the timeslots-exams matrix from the schedule.
+	 * @return	a new matrix having element [i][j] set to 1 when
+	 * 			exam j is scheduled in the i-th timeslot.
+	 */
 	public int[][] getTe() {
+		int[][] te = new int[instance.getTmax()][instance.getE()];
+		
+		for(int exam = 0; exam < schedule.length; ++exam)
+			te[schedule[exam]][exam] = 1;
+		
 		return te;
 	}
 	
+	/**
+	 * @return	a copy of the timeslot of each exam.
+	 */
+	public int[] getSchedule() {
+		return Utility.cloneArray(schedule);
+	}
+	
 	/**
 	 * Returns the timeslot in which the given exam has been scheduled.
 	 * @param exam	exam whose corresponding scheduled timeslot is requested.
@@ -434,37 +533,65 @@ public abstract class Solution implements Comparable<Solution>{
 	}
 	
 	/**
-	 * TODO JavaDoc
-	 * @param neighbor
+	 * Performs the move corresponding to the given neighbor.
+	 * @param neighbor	the neighbor chosen by the algorithm.
 	 */
 	public void move(Neighbor neighbor) {
-		/*TODO debug*/ //System.out.println("Move: <e" + neighbor.getMovingExam() + ", from t" + currentSolution.getTimeslot(neighbor.getMovingExam()) + " to t" + neighbor.getNewTimeslot() + ">");
+		if(neighbor.isKempeChain()) {
+			if(kempeChain == null)
+				kempeChain = new KempeChain(instance.getE());
+			
+			kempeChain.build(this, neighbor.getMovingExam(), neighbor.getNewTimeslot(), instance.getE());
+			moveKempeChain(kempeChain);
+			return;
+		}
 		
-		// Retrieving current solution's infos before performing the move
-		int movingExam = neighbor.getMovingExam();
-		int oldTimeslot = getTimeslot(movingExam);
-		/*TODO debug*/ //System.out.println("movingExam's index inside move(): " + movingExam);
-		/*TODO debug*/ //System.out.println("old fitness = " + currentSolution.getFitness());
+		move(neighbor.getMovingExam(), neighbor.getNewTimeslot());
 		
-		updateSolution(movingExam, oldTimeslot, neighbor);
+		if(neighbor.isSwap())
+			move(neighbor.getSwappedExam(), neighbor.getSwappedExamNewTimeslot());
+	}
+	
+	/**
+	 * Exchanges the timeslots of all exams in a Kempe chain, one exam
+	 * at a time: the solution is feasible again once all of them have
+	 * been moved.
+	 * @param chain		chain built on this solution.
+	 */
+	public void moveKempeChain(KempeChain chain) {
+		for(int i = 0; i < chain.size(); ++i)
+			move(chain.getExam(i), chain.getNewTimeslot(i));
 	}
 	
 	/**
-	 * update the current solution with the chosen move
-	 * @param int						the exam to be moved
-	 * @param oldTimeSlod				the time-slot where the exam is moved
-	 * @param neighbor					the neighbor chosen by the algorithm
+	 * Moves an exam to another timeslot, updating in a single pass the
+	 * schedule, the fitness and the penalizing pairs. The move is
+	 * recorded in the undo log if a checkpoint is open.
+	 * @param movingExam	exam to be rescheduled.
+	 * @param newTimeslot	timeslot in which it will end.
 	 */
-	private void updateSolution(int movingExam, int oldTimeslot, Neighbor neighbor) {		
-		// Updating the current solution
-		updateTe(movingExam, oldTimeslot, neighbor.getNewTimeslot());
-		updateSchedule(neighbor); 
-		setFitness(neighbor.getFitness());
-		updatePenalizingPairs(neighbor);
+	public void move(int movingExam, int newTimeslot) {
+		int oldTimeslot = schedule[movingExam];
+		
+		if(oldTimeslot == newTimeslot)
+			return;
+		
+		/*TODO debug*/ //System.out.println("Move: <e" + movingExam + ", from t" + oldTimeslot + " to t" + newTimeslot + ">");
+		
+		if(openCheckpoints > 0) {
+			if(undoLength == undoExams.length) {
+				undoExams = Arrays.copyOf(undoExams, undoLength * 2);
+				undoTimeslots = Arrays.copyOf(undoTimeslots, undoLength * 2);
+			}
+			
+			undoExams[undoLength] = movingExam;
+			undoTimeslots[undoLength] = oldTimeslot;
+			++undoLength;
+		}
+		
+		updateSchedule(movingExam, newTimeslot);
+		updatePenalizingPairs(movingExam);
 		
-		if(this instanceof OptimizationSolution)
-			((OptimizationSolution)this).initializeDistanceMatrix();
-				
 //		/*TODO debug*/float testIncrementalFitness = getFitness();
 //		/*TODO debug (fitness)*/ System.out.println("\nFitness: " + getFitness());
 //		/*TODO debug*/ initializeFitness();
@@ -476,6 +603,54 @@ public abstract class Solution implements Comparable<Solution>{
 		/*TODO debug (fitness from scratch)*/ //System.out.println("Calculating the fitness from scratch: " + currentSolution.getFitness());
 	}
 	
+	/**
+	 * Opens a checkpoint: from now on, moves are recorded so that they
+	 * can be reverted, e.g. to evaluate trial or compound moves in place
+	 * instead of copying the solution. Checkpoints can be nested, and
+	 * each of them must be closed by either revert() or commit().
+	 * @return	the checkpoint, to be passed to revert() or commit().
+	 */
+	public int checkpoint() {
+		++openCheckpoints;
+		
+		return undoLength;
+	}
+	
+	/**
+	 * Undoes, from the newest to the oldest one, all moves performed
+	 * since the given checkpoint, which is then closed. Fitness and
+	 * penalizing pairs are restored by the reverse moves themselves,
+	 * each one costing as much as the original move.
+	 * @param checkpoint	value returned by the corresponding checkpoint().
+	 */
+	public void revert(int checkpoint) {
+		// Reverse moves must not be logged
+		int checkpoints = openCheckpoints;
+		openCheckpoints = 0;
+		
+		while(undoLength > checkpoint) {
+			--undoLength;
+			move(undoExams[undoLength], undoTimeslots[undoLength]);
+		}
+		
+		openCheckpoints = checkpoints;
+		commit(checkpoint);
+	}
+	
+	/**
+	 * Keeps all moves performed since the given checkpoint, which is
+	 * then closed. They can still be reverted by an enclosing checkpoint.
+	 * @param checkpoint	value returned by the corresponding checkpoint().
+	 */
+	public void commit(int checkpoint) {
+		if(openCheckpoints == 0)
+			throw new IllegalStateException("No open checkpoint");
+		
+		// The log is no longer needed once the outermost checkpoint is closed
+		if(--openCheckpoints == 0)
+			undoLength = 0;
+	}
+	
 	// Searching in Lists
 	@Override
 	public boolean equals(Object o) {
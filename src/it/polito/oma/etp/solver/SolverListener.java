@@ -0,0 +1,40 @@
+package it.polito.oma.etp.solver;
+
+import it.polito.oma.etp.solver.telemetry.SolverStatistics;
+
+/**
+ * Receives progress notifications of a solving job.
+ * Methods are called by the job's own threads, possibly by
+ * several of them at the same time: implementations must be
+ * thread-safe and return quickly.
+ */
+public interface SolverListener {
+	/**
+	 * Listener ignoring every notification.
+	 */
+	SolverListener NONE = new SolverListener() {};
+	
+	/**
+	 * Called when the job starts running.
+	 * @param statistics	progress counters of the job, updated
+	 * 						while it is running.
+	 */
+	default void jobStarted(SolverStatistics statistics) {}
+	
+	/**
+	 * Called once the feasible solutions the optimization problem
+	 * starts from have been found.
+	 * @param initialPopulation		feasible solutions found.
+	 */
+	default void initializationCompleted(Population initialPopulation) {}
+	
+	/**
+	 * Called whenever a Tabu Search walker finds a solution better
+	 * than all the ones found so far by the job.
+	 * Improvements found at the same time by different walkers may
+	 * be notified out of order.
+	 * @param bestSolution		the new best solution, which must not
+	 * 							be modified.
+	 */
+	default void bestSolutionImproved(Solution bestSolution) {}
+}
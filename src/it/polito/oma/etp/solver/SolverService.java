@@ -0,0 +1,159 @@
+package it.polito.oma.etp.solver;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import it.polito.oma.etp.reader.InstanceCache;
+import it.polito.oma.etp.reader.InstanceData;
+
+/**
+ * In-process entry point of the solver: solving jobs are submitted
+ * together with their instance data and settings, and are solved
+ * concurrently by a bounded number of threads.
+ * Jobs do not share any state, so instances and settings of different
+ * jobs are independent of each other.
+ */
+public class SolverService implements AutoCloseable {
+	/**
+	 * Runs the jobs, at most one per thread at a time; the others
+	 * wait in the executor queue.
+	 */
+	private final ExecutorService executor;
+	
+	/**
+	 * Number of threads each job uses internally.
+	 */
+	private final int threadsPerJob;
+	
+	/**
+	 * Instances submitted by name, shared by all jobs, so that an
+	 * instance solved again is not read again.
+	 */
+	private final InstanceCache instanceCache = new InstanceCache();
+	
+	/**
+	 * Results of the jobs submitted and not completed yet.
+	 */
+	private final Set<CompletableFuture<Solution>> pendingResults = ConcurrentHashMap.newKeySet();
+	
+	/**
+	 * @param maxConcurrentJobs		how many jobs can be solved at the same time.
+	 * @param threadsPerJob			how many threads each job can use to build its
+	 * 								initial solutions and to run its Tabu Search walkers.
+	 */
+	public SolverService(int maxConcurrentJobs, int threadsPerJob) {
+		if(maxConcurrentJobs <= 0 || threadsPerJob <= 0)
+			throw new IllegalArgumentException("Thread numbers must be positive integers");
+		
+		executor = Executors.newFixedThreadPool(maxConcurrentJobs);
+		this.threadsPerJob = threadsPerJob;
+	}
+	
+	/**
+	 * Submits a solving job.
+	 * The timeout starts when the job starts running, not when it is
+	 * submitted. Cancelling the returned future stops the job as soon
+	 * as its algorithms check their stopping condition.
+	 * @param instance		instance problem data.
+	 * @param settings		common settings, copied by the job.
+	 * @param timeout		time the job is allowed to last.
+	 * @param unit			timeout time unit.
+	 * @param listener		notified about the job progress.
+	 * @return				a future completed with the best solution found before
+	 * 						the timeout expired, or exceptionally if the job failed.
+	 */
+	public CompletableFuture<Solution> submit(	InstanceData instance,
+												Settings settings,
+												long timeout,
+												TimeUnit unit,
+												SolverListener listener
+	) {
+		CompletableFuture<Solution> result = new CompletableFuture<Solution>();
+		pendingResults.add(result);
+		result.whenComplete((solution, throwable) -> pendingResults.remove(result));
+		
+		executor.execute(() -> {
+			// Cancelled while waiting in the queue
+			if(result.isDone())
+				return;
+			
+			CancellationToken cancellationToken = CancellationToken.withTimeout(timeout, unit);
+			
+			// Stopping the job algorithms if the future is cancelled
+			result.whenComplete((solution, throwable) -> cancellationToken.cancel());
+			
+			try {
+				result.complete(
+					new SolvingJob(
+						instance,
+						settings,
+						threadsPerJob,
+						unit.toMillis(timeout) / 1000.0,
+						cancellationToken,
+						listener
+					).solve()
+				);
+			} catch(Throwable e) {
+				result.completeExceptionally(e);
+			}
+		});
+		
+		return result;
+	}
+	
+	/**
+	 * Submits a solving job for an instance read from its files, through
+	 * the instance cache of this service: instances already read are not
+	 * read again unless their files have changed.
+	 * @param instanceName	name of the instance files, without extensions.
+	 * @return				a future completed with the best solution found before
+	 * 						the timeout expired, or exceptionally if the instance
+	 * 						cannot be read or the job failed.
+	 * @see #submit(InstanceData, Settings, long, TimeUnit, SolverListener)
+	 */
+	public CompletableFuture<Solution> submit(	String instanceName,
+												Settings settings,
+												long timeout,
+												TimeUnit unit,
+												SolverListener listener
+	) {
+		InstanceData instance;
+		try {
+			instance = instanceCache.getData(instanceName);
+		} catch(RuntimeException e) {
+			CompletableFuture<Solution> result = new CompletableFuture<Solution>();
+			result.completeExceptionally(e);
+			return result;
+		}
+		
+		return submit(instance, settings, timeout, unit, listener);
+	}
+	
+	/**
+	 * Submits a solving job without progress notifications.
+	 * @see #submit(InstanceData, Settings, long, TimeUnit, SolverListener)
+	 */
+	public CompletableFuture<Solution> submit(	InstanceData instance,
+												Settings settings,
+												long timeout,
+												TimeUnit unit
+	) {
+		return submit(instance, settings, timeout, unit, SolverListener.NONE);
+	}
+	
+	/**
+	 * Cancels all running and queued jobs; no job can be
+	 * submitted afterwards.
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+		
+		for(CompletableFuture<Solution> result: pendingResults)
+			result.cancel(false);
+	}
+}
@@ -0,0 +1,365 @@
+package it.polito.oma.etp.solver;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import it.polito.oma.etp.reader.InstanceData;
+import it.polito.oma.etp.solver.initialization.InitializationPopulation;
+import it.polito.oma.etp.solver.initialization.InitializationSolution;
+import it.polito.oma.etp.solver.initialization.TabuInitialization;
+import it.polito.oma.etp.solver.optimization.GeneticOptimization;
+import it.polito.oma.etp.solver.optimization.OptimizationSolution;
+import it.polito.oma.etp.solver.optimization.TabuOptimization;
+import it.polito.oma.etp.solver.optimization.TimeslotPermutation;
+import it.polito.oma.etp.solver.telemetry.SolverStatistics;
+
+/**
+ * A single timetabling problem solving run: feasible solutions are
+ * searched first (initialization problem), then the best one is
+ * looked for starting from them (optimization problem).
+ * All the state of the run is kept here, so that several jobs can
+ * be solved at the same time in the same JVM.
+ */
+public class SolvingJob {
+	private final InstanceData instance;
+	private final Settings commonSettings;
+	
+	/**
+	 * Number of threads used by this job, both for building the
+	 * initial population and for the Tabu Search walkers.
+	 */
+	private final int threads;
+	
+	/**
+	 * Time this job is allowed to last, in seconds.
+	 * It tunes the time worsening criterion of the Tabu List.
+	 */
+	private final double timeout;
+	
+	/**
+	 * Stopping condition shared by all the algorithms of this job.
+	 */
+	private final CancellationToken cancellationToken;
+	
+	private final SolverListener listener;
+	
+	/**
+	 * Progress counters of all the algorithms of this job.
+	 */
+	private final SolverStatistics statistics = new SolverStatistics();
+	
+	/**
+	 * Once the first feasible seed of the Tabu Search walkers has been
+	 * found, the other ones are waited for at most this many times the
+	 * time it took, so that slow seeds cannot take up the whole run.
+	 */
+	private static final double WALKER_SEEDS_PATIENCE = 1;
+	
+	/**
+	 * @param instance				instance problem data.
+	 * @param settings				common settings, copied by the job.
+	 * @param threads				how many threads the job can use.
+	 * @param timeout				time the job is allowed to last, in seconds.
+	 * @param cancellationToken		stopping condition of the job.
+	 * @param listener				notified about the job progress.
+	 */
+	public SolvingJob(	InstanceData instance,
+						Settings settings,
+						int threads,
+						double timeout,
+						CancellationToken cancellationToken,
+						SolverListener listener
+	) {
+		this.instance = instance;
+		commonSettings = new Settings(settings);
+		this.threads = Math.max(1, threads);
+		this.timeout = timeout;
+		this.cancellationToken = cancellationToken;
+		this.listener = listener;
+		
+		// Multi-start Tabu Search: one feasible solution for each walker, if found in time
+		if(!commonSettings.geneticOptimization)
+			commonSettings.initialPopulationSize = this.threads;
+	}
+	
+	/**
+	 * Solves the initialization problem and then the optimization one,
+	 * finally reordering the timeslots of the best solution found.
+	 * @return	the best solution found before the job has been stopped.
+	 */
+	public OptimizationSolution solve() {
+		// Statistics can be monitored through JMX while the job is running
+		statistics.register(instance.getInstanceName());
+		listener.jobStarted(statistics);
+		
+		try {
+			// Searching for feasible solutions
+			InitializationPopulation initialPopulation = initialization();
+			listener.initializationCompleted(initialPopulation);
+			statistics.optimizationStarted();
+			
+			// Computing the timetabling solution
+			OptimizationSolution bestSolution = optimization(initialPopulation);
+			
+			// Cheap post-phase: reordering whole timeslots keeps the solution feasible
+			TimeslotPermutation permutation = new TimeslotPermutation(bestSolution);
+			if(permutation.optimize()) {
+				bestSolution = new OptimizationSolution(instance, permutation.getSchedule());
+				statistics.bestSolutionFound(TimeslotPermutation.class.getSimpleName(), bestSolution.getFitness());
+				listener.bestSolutionImproved(bestSolution);
+			}
+			
+			return bestSolution;
+		} finally {
+			statistics.unregister();
+		}
+	}
+	
+	/**
+	 * @return	progress counters of this job.
+	 */
+	public SolverStatistics getStatistics() {
+		return statistics;
+	}
+	
+	private InitializationPopulation initialization() {
+		if(commonSettings.geneticInitialization)
+			return geneticInitialization();
+		else
+			return tabuInitialization();
+	}
+	
+	private InitializationPopulation tabuInitialization() {
+		// Tabu List dynamic size: time worsening criterion
+	    int tabuListInitialSize = 20;
+	    int tabuListMaxSize = 45;
+	    int tabuListIntervalAdd = 4;
+	    double tabuListIncrementTimeInterval = (timeout / 3) / ((tabuListMaxSize - tabuListInitialSize) / tabuListIntervalAdd);
+	
+	    // Tabu Search initialization tuning
+	    TabuSettings initializationSettings = new TabuSettings(
+			// Common settings
+	    	commonSettings,
+	
+	    	// General Tabu List settings
+			1,	// neighborhoodGeneratingPairsPercentage
+			false,	// considerAllTimeslots
+			false,	// deltaMatrix
+			1,		// neighborhoodEvaluationThreads
+			true,	// streamingNeighborSelection
+			false,	// swapMoves
+			0,		// kempeChainMaxSize
+			20,		// tabuListInitialSize
+			
+			// Dynamic Tabu List section
+			true,	// dynamicTabuList
+			2,		// worseningCriterion (1: deltaFitness, 2: iterations, 3: time)
+			45,		// tabuListMaxSize
+			9000,	// maxNonImprovingIterationsAllowed
+			3,		// tabuListIncrementSize
+			
+			// deltaFitness worsening criterion
+			50,		// movingAveragePeriod
+			
+			// time worsening criterion
+			tabuListIncrementTimeInterval, 		// tabuListIncrementTimeInterval
+			commonSettings.initialPopulationSize	// numberOfThreads
+		);
+		
+		// Starting a stopwatch
+		double startTime = System.nanoTime();
+		
+		/**
+		 * TabuInitialization implementations run concurrently, one for each
+		 * chromosome. The Genetic Algorithm waits for all of them, while
+		 * Tabu walkers start soon after the first feasible seed is found.
+		 */
+		InitializationPopulation initialPopulation = new InitializationPopulation(
+			instance,
+			initializationSettings.initialPopulationSize,
+			initializationSettings.numberOfThreads,
+			commonSettings.seed,
+			random -> {
+				TabuSearch solutionGenerator = new TabuInitialization(instance, initializationSettings, random);
+				solutionGenerator.setStatistics(statistics);
+				
+				return (InitializationSolution)solutionGenerator.solve(cancellationToken);
+			},
+			commonSettings.geneticOptimization ? Double.POSITIVE_INFINITY : WALKER_SEEDS_PATIENCE
+		);
+		
+		/*
+		 * IMPORTANT! You must filter infeasible solutions from setOfSolutions here!
+		 */
+		for(int i = 0; i < initialPopulation.getSize(); i++) {
+			if(initialPopulation.getSize() != 0) {
+				if(!initialPopulation.getSolution(i).isFeasible()) {
+					/*TODO debug*/ //System.out.println("Removing " + initialPopulation.getSolution(i));
+					initialPopulation.delete(i);
+					i--;
+				}
+			}
+		}
+		
+		/*
+		 * Checking whether enough feasible solutions have been found: the Genetic
+		 * Algorithm needs its whole population, while Tabu walkers share seeds
+		 */
+		int requiredPopulationSize = commonSettings.geneticOptimization ? initializationSettings.initialPopulationSize : 1;
+		if(initialPopulation.getSize() < requiredPopulationSize)
+			throw new AssertionError(
+				"The solver couldn't find " +  requiredPopulationSize + 
+				" feasible solutions to start with." + 
+				"\nNumber of feasible solutions found: " + initialPopulation.getSize()
+			);
+		
+		// Computing the elapsed time since starting searching for feasible solutions
+		double finishTime = System.nanoTime();
+		double elapsedTime = (finishTime - startTime) / 1000000000;
+		/*TODO debug*//*System.out.println(
+			"Time to generate " + initializationSettings.initialPopulationSize + 
+			" feasible solutions for " + instance.getInstanceName() + ": " +
+			elapsedTime + " seconds"
+		);*/
+		
+		// TODO (debug) Printing initial feasible population
+//		System.out.println("initialPopulation found:");
+//		for(Solution initialFeasibleSolution: initialPopulation.getChromosomes())
+//			System.out.println(initialFeasibleSolution);
+//		
+		return initialPopulation;
+	}
+	
+	// TODO implement
+	private InitializationPopulation geneticInitialization() {
+		throw new AssertionError("GeneticInitialization still to be implemented");
+	}
+	
+	private OptimizationSolution optimization(InitializationPopulation initialPopulation) {
+		if(commonSettings.geneticOptimization)
+			return geneticOptimization(initialPopulation);
+		else
+			return tabuOptimization(initialPopulation);
+	}
+	
+	private OptimizationSolution tabuOptimization(InitializationPopulation initialPopulation) {
+		// Tabu List dynamic size: time worsening criterion
+	    int tabuListInitialSize = 20;
+	    int tabuListMaxSize = 40;
+	    int tabuListIntervalAdd = 5;
+	    double tabuListIncrementTimeInterval = (timeout / 3) / ((tabuListMaxSize - tabuListInitialSize) / tabuListIntervalAdd);
+		
+		// Tabu Search optimization tuning
+		TabuSettings optimizationSettings  = new TabuSettings(
+			// Common settings
+	    	commonSettings,
+			
+			// General Tabu List settings
+			1,		// neighborhoodGeneratingPairsPercentage
+			true,	// considerAllTimeslots
+			true,	// deltaMatrix
+			1,		// neighborhoodEvaluationThreads (walkers already use all cores)
+			true,	// streamingNeighborSelection
+			true,	// swapMoves
+			0,		// kempeChainMaxSize
+			20,		// tabuListInitialSize
+			
+			// Dynamic Tabu List section
+			true,	// dynamicTabuList
+			1,		// worseningCriterion (1: deltaFitness, 2: iterations, 3: time)
+			45,		// tabuListMaxSize
+			9000,	// maxNonImprovingIterationsAllowed
+			7,		// tabuListIncrementSize
+			
+			// deltaFitness worsening criterion
+			50,		// movingAveragePeriod
+			
+			// time worsening criterion
+			tabuListIncrementTimeInterval, 		// tabuListIncrementTimeInterval
+			threads								// numberOfThreads
+		);
+		
+		// Best solution shared among all walkers
+		BestSolutionBoard bestSolutionBoard = new BestSolutionBoard(listener);
+		
+		// Walkers run on the job threads, and stop as soon as the timeout expires
+		ExecutorService walkersExecutor = Executors.newFixedThreadPool(optimizationSettings.numberOfThreads);
+		try {
+			// Each walker starts from a different feasible solution, if available
+			ArrayList<Future<Solution>> walkers = new ArrayList<Future<Solution>>();
+			for(int i = 0; i < optimizationSettings.numberOfThreads; ++i) {
+				InitializationSolution initialSolution = 
+					(InitializationSolution)initialPopulation.getSolution(i % initialPopulation.getSize());
+				
+				// Starting from the best order of its timeslots
+				TimeslotPermutation permutation = new TimeslotPermutation(initialSolution);
+				if(permutation.optimize())
+					initialSolution = new InitializationSolution(instance, permutation.getSchedule());
+				
+				TabuSearch solutionGenerator = new TabuOptimization(
+					instance, 
+					initialSolution, 
+					optimizationSettings
+				);
+				solutionGenerator.setBestSolutionBoard(bestSolutionBoard);
+				solutionGenerator.setStatistics(statistics);
+				
+				walkers.add(walkersExecutor.submit(() -> solutionGenerator.solve(cancellationToken)));
+			}
+			
+			for(Future<Solution> walker: walkers)
+				walker.get();
+		} catch(InterruptedException e) {
+			// The whole job stops, and so does the caller
+			cancellationToken.cancel();
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the Tabu Search walkers", e);
+		} catch(ExecutionException e) {
+			cancellationToken.cancel();
+			
+			if(e.getCause() instanceof RuntimeException)
+				throw (RuntimeException)e.getCause();
+			
+			throw new IllegalStateException("Tabu Search walker failed", e.getCause());
+		} finally {
+			walkersExecutor.shutdownNow();
+		}
+		
+		return (OptimizationSolution)bestSolutionBoard.getBestSolution();
+	}
+	
+	private OptimizationSolution geneticOptimization(InitializationPopulation initialPopulation) {
+		// Genetic Algorithm tuning
+		int[] cuttingPoints = {3,7};
+		GeneticSettings gaSettings = new GeneticSettings(
+			// Common settings
+	    	commonSettings,
+			
+			// General GA settings
+			false, 				// initializationProblem
+			true,				// randomParentSelection
+			2, 					// numberOfReproductiveParents
+			true,				// selectChromosomesToKillByRelativeFitness
+			2, 					// cuttingPointsNumber -> NB: if we wont just one cutting point we have to 
+								// set whereToCut = {0,x}
+			true, 				// randomCuttingPoint
+			null,				// whereToCut
+			2,					// numberOfChildrenToGenerate
+			20,					// cloningManagementThreshold
+			10,					// genesToMutateIfClones
+			0.05,				// mutationProbabilityInitialValue
+			0.05,				// mutationProbabilityMinimumValue
+			0.5,				// mutationProbabilityMaximumValue
+			50,					// mutationProbabilityManagementThreshold
+			0.5,				// mutationProbabilityConvergenceRatio
+			0.1					// mutatingGenesPercentage
+		);
+		
+		GeneticAlgorithm solutionGenerator = new GeneticOptimization(instance, gaSettings, initialPopulation);
+		solutionGenerator.setStatistics(statistics);
+		return (OptimizationSolution)solutionGenerator.solve(cancellationToken);
+	}
+}
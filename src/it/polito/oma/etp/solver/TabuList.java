@@ -1,69 +1,154 @@
 package it.polito.oma.etp.solver;
 
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.LinkedList;
 
+/**
+ * Tabu List storing forbidden (exam, timeslot) moves.
+ * Moves are kept in a ring buffer, so that the oldest one expires
+ * first, while an exam-timeslot matrix counts how many times each
+ * move is currently in the list: checking whether a move is tabu
+ * takes constant time, whatever the list size.
+ */
 public class TabuList {
 	private int	size,
 				maxSize;
 	
-	private LinkedList<Neighbor> tabuList;
+	/**
+	 * Ring buffer containing the moves, from the oldest one
+	 * (at position head) to the newest one.
+	 */
+	private int[] exams;
+	private int[] timeslots;
+	private int head;
+	private int count;
 	
-	public TabuList(int initialSize, int maxSize) {
+	/**
+	 * Element [e][t] contains how many times moving exam e to
+	 * timeslot t appears in the ring buffer.
+	 */
+	private int[][] occurrences;
+	
+	public TabuList(int initialSize, int maxSize, int E, int Tmax) {
 		size = initialSize;
 		this.maxSize = maxSize;
-		tabuList = new LinkedList<Neighbor>();
+		
+		int capacity = Math.max(initialSize, maxSize);
+		exams = new int[capacity];
+		timeslots = new int[capacity];
+		occurrences = new int[E][Tmax];
 	}
-
+	
 	public void add(Neighbor neighbor) {
-		if(!isFull())
-			tabuList.add(neighbor);
-		else {
-			tabuList.pop();
-			tabuList.add(neighbor);
+		add(neighbor.getMovingExam(), neighbor.getNewTimeslot());
+	}
+	
+	/**
+	 * Makes a move tabu, forgetting the oldest one if the list is full.
+	 * @param exam	moving exam.
+	 * @param t		timeslot in which the exam would be moved.
+	 */
+	public void add(int exam, int t) {
+		// A null-sized list cannot contain any move
+		if(size == 0)
+			return;
+		
+		if(isFull())
+			pop();
+		
+		if(count == exams.length)
+			grow();
+		
+		int tail = (head + count) % exams.length;
+		exams[tail] = exam;
+		timeslots[tail] = t;
+		++occurrences[exam][t];
+		++count;
+	}
+	
+	/**
+	 * Removes the oldest move from the list.
+	 */
+	private void pop() {
+		--occurrences[exams[head]][timeslots[head]];
+		head = (head + 1) % exams.length;
+		--count;
+	}
+	
+	/**
+	 * Doubles the ring buffer capacity, keeping the moves order.
+	 */
+	private void grow() {
+		int[] newExams = new int[exams.length * 2];
+		int[] newTimeslots = new int[exams.length * 2];
+		
+		for(int i = 0; i < count; ++i) {
+			newExams[i] = exams[(head + i) % exams.length];
+			newTimeslots[i] = timeslots[(head + i) % exams.length];
 		}
+		
+		exams = newExams;
+		timeslots = newTimeslots;
+		head = 0;
 	}
 	
+	/**
+	 * Linear search of a move, from the oldest to the newest one.
+	 * Use contains() when the position is not needed.
+	 * @param neighbor	move to be searched.
+	 * @return			the move position, or -1 if it is not tabu.
+	 */
 	public int find(Neighbor neighbor) {
-		return tabuList.indexOf(neighbor);
+		if(!contains(neighbor))
+			return -1;
+		
+		for(int i = 0; i < count; ++i) {
+			int position = (head + i) % exams.length;
+			
+			if(exams[position] == neighbor.getMovingExam() && timeslots[position] == neighbor.getNewTimeslot())
+				return i;
+		}
+		
+		return -1;
 	}
 	
 	private boolean isFull() {
-		return tabuList.size() == size;
+		return count >= size;
 	}
 	
+	/**
+	 * Checks in constant time whether a move is tabu.
+	 * @param exam	moving exam.
+	 * @param t		timeslot in which the exam would be moved.
+	 * @return		true if the move is in the Tabu List.
+	 */
 	public boolean contains(int exam, int t) {
-		boolean b = false;
-		
-		Iterator<Neighbor> i;
-		Neighbor n;
-		for(i = tabuList.iterator(); i.hasNext();) {
-			n = i.next();
-			if(n.getMovingExam() == exam && n.getNewTimeslot() == t)
-				b = true;
-		}
-		
-		return b;
+		return occurrences[exam][t] > 0;
+	}
+	
+	/**
+	 * Checks in constant time whether a move is tabu. A swap move
+	 * is tabu if any of its two relocations is.
+	 * @param neighbor	move to be checked.
+	 * @return			true if the move is in the Tabu List.
+	 */
+	public boolean contains(Neighbor neighbor) {
+		return	contains(neighbor.getMovingExam(), neighbor.getNewTimeslot()) ||
+				(neighbor.isSwap() && contains(neighbor.getSwappedExam(), neighbor.getSwappedExamNewTimeslot()));
 	}
 	
 	public int getSize() {
 		return size;
 	}
-
+	
 	public void setSize(int size) {
 		if(size == this.size)
 			return;
 		
 		// Decreasing size
 		if(size < this.size) {
-			int decrease = this.size - size;
-			
 			// Popping oldest Tabu List elements
-			while(decrease > 0) {
-				tabuList.pop();
-				--decrease;
-			}
+			while(count > size)
+				pop();
 			
 			this.size = size;
 		}
@@ -81,12 +166,20 @@ public class TabuList {
 	}
 	
 	public Neighbor getLastEntry() {
-		return tabuList.getLast();
+		int tail = (head + count - 1) % exams.length;
+		
+		return new Neighbor(exams[tail], timeslots[tail]);
 	}
 	
 	@Override
 	public String toString() {
-		return Arrays.toString(tabuList.toArray());
+		Neighbor[] moves = new Neighbor[count];
+		
+		for(int i = 0; i < count; ++i) {
+			int position = (head + i) % exams.length;
+			moves[i] = new Neighbor(exams[position], timeslots[position]);
+		}
+		
+		return Arrays.toString(moves);
 	}
 }
-
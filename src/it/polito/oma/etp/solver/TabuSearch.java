@@ -5,11 +5,12 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.Queue;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import it.polito.oma.etp.reader.InstanceData;
-import it.polito.oma.etp.solver.optimization.OptimizationSolution;
+import it.polito.oma.etp.solver.telemetry.SolverStatistics;
 
 public abstract class TabuSearch {
 	protected TabuSettings settings;
@@ -18,54 +19,150 @@ public abstract class TabuSearch {
 	protected Solution bestSolution;
 	protected int iteration = 0;
 	protected TabuList tabuList;
-	private static boolean TIMER_EXPIRED = false;
+	
+	/**
+	 * Tabu List of Kempe chain moves: after a chain is moved, each of
+	 * its exams is forbidden to start a chain towards its old timeslot,
+	 * which would move the same chain back.
+	 */
+	protected TabuList kempeTabuList;
 	protected int bestSolutionIteration = 0;
 	protected MovingAverage fitnessMovingAverage;
 	
+	/**
+	 * Board shared with other Tabu Search instances running concurrently,
+	 * null if this one is running alone.
+	 */
+	protected BestSolutionBoard bestSolutionBoard;
+	
+	/**
+	 * Random stream of this instance, only used by the thread running it.
+	 */
+	protected final SplittableRandom random;
+	
+	/**
+	 * Threads evaluating the neighborhood in parallel while solve() is
+	 * running, null if the neighborhood is evaluated sequentially.
+	 */
+	private ForkJoinPool neighborhoodEvaluationPool;
+	
+	/**
+	 * Kempe chain work buffers, one for each thread evaluating
+	 * the neighborhood, caching the chains of the current exploration.
+	 */
+	private final ThreadLocal<KempeChain> kempeChains;
+	
+	/**
+	 * Incremented at each neighborhood exploration, so that chains
+	 * cached on a previous solution are not used.
+	 */
+	private volatile int explorations;
+	
+	/**
+	 * Progress counters of the job this instance belongs to, null if
+	 * progress is not recorded. Local counters are accumulated since
+	 * the last report and reported every SolverStatistics.REPORTING_PERIOD
+	 * iterations.
+	 */
+	private SolverStatistics statistics;
+	private int reportedIterations;
+	private long neighborsEvaluated;
+	private long tabuHits;
+	private long aspirations;
+	
 	public TabuSearch(InstanceData instanceData, TabuSettings settings) {
+		this(instanceData, settings, new SplittableRandom());
+	}
+	
+	/**
+	 * @param random	random stream of this instance, so that its random
+	 * 					choices only depend on the stream seed.
+	 */
+	public TabuSearch(InstanceData instanceData, TabuSettings settings, SplittableRandom random) {
 		this.instance = instanceData;
 		this.settings = settings;
-		tabuList = new TabuList(settings.tabuListInitialSize, settings.tabuListMaxSize);
+		this.random = random;
+		tabuList = new TabuList(settings.tabuListInitialSize, settings.tabuListMaxSize, instance.getE(), instance.getTmax());
+		kempeTabuList = new TabuList(settings.tabuListInitialSize, settings.tabuListMaxSize, instance.getE(), instance.getTmax());
+		kempeChains = ThreadLocal.withInitial(() -> new KempeChain(instance.getE(), instance.getTmax()));
 		fitnessMovingAverage = new MovingAverage(settings.movingAveragePeriod);
 	}
 	
 	/**
 	 * Starts the Tabu Search algorithm starting from the given initial
 	 * solution, using the given instance data.
-	 * @param instanceData		data describing the problem instance.
-	 * @param initialSolution	initial solution from which the Tabu Search
-	 * 							algorithm starts.
-	 * @return					the best solution found so far.
+	 * @param cancellationToken		stopping condition of this run, checked
+	 * 								once per iteration.
+	 * @return						the best solution found so far.
 	 */
-	public Solution solve() {
+	public Solution solve(CancellationToken cancellationToken) {
+		startNeighborhoodEvaluation();
+		
+		try {
+			return search(cancellationToken);
+		} finally {
+			stopNeighborhoodEvaluation();
+		}
+	}
+	
+	/**
+	 * Creates the threads evaluating the neighborhood in parallel, if any:
+	 * they only live as long as a run.
+	 * @throws IllegalStateException	if the current solution does not
+	 * 									support concurrent evaluation.
+	 */
+	void startNeighborhoodEvaluation() {
+		if(settings.neighborhoodEvaluationThreads > 1 && settings.considerAllTimeslots) {
+			if(!currentSolution.prepareConcurrentEvaluation())
+				throw new IllegalStateException(
+					currentSolution.getClass().getSimpleName() + " neighbors cannot be evaluated concurrently"
+				);
+			
+			neighborhoodEvaluationPool = new ForkJoinPool(settings.neighborhoodEvaluationThreads);
+		}
+	}
+	
+	/**
+	 * Shuts down the threads evaluating the neighborhood in parallel, if any.
+	 */
+	void stopNeighborhoodEvaluation() {
+		if(neighborhoodEvaluationPool != null) {
+			neighborhoodEvaluationPool.shutdownNow();
+			neighborhoodEvaluationPool = null;
+		}
+	}
+	
+	/**
+	 * Tabu Search main loop.
+	 * @param cancellationToken		stopping condition of this run.
+	 * @return						the best solution found so far.
+	 */
+	private Solution search(CancellationToken cancellationToken) {
 		// Number of consecutive non-improving iterations
 		int nonImprovingIterations = 0;
 		
 		// Tabu List dynamic size: time worsening criterion
-		if(settings.worseningCriterion == 3) {
-			int delay = (int)(settings.tabuListIncrementTimeInterval * 1000); 
-		    
-			new Timer().schedule(
-		    	new TimerTask() {
-		    		@Override
-		    		public void run() {
-		    			// Increasing Tabu List size
-		    			tabuList.increaseSize(settings.tabuListIncrementSize);
-	    			}
-	    		},
-		    	delay,
-		        delay
-		    );
-		}
+		long tabuListIncrementInterval = (long)(settings.tabuListIncrementTimeInterval * 1000000000);
+		long nextTabuListIncrement = System.nanoTime() + tabuListIncrementInterval;
 		
-		while(bestSolution.getFitness() > 0 && !TIMER_EXPIRED && !Thread.interrupted()) {
+		// Best solution last reported to the statistics
+		Solution reportedBestSolution = null;
+		
+		while(bestSolution.getFitness() > 0 && !cancellationToken.isCancelled() && !Thread.interrupted()) {
 			/*TODO debug (iteration)*/ //System.out.println(Thread.currentThread().getName() + "\n***** Iteration " + iteration + " *****");
 						
 			Neighbor validNeighbor = null;
 			
 			// No valid neighbor in the neighborhood
-			while(validNeighbor == null && !TIMER_EXPIRED) {
+			while(validNeighbor == null && !cancellationToken.isCancelled()) {
+				// Single pass selection, no neighborhood is stored
+				if(settings.streamingNeighborSelection) {
+					validNeighbor = selectBestAdmissibleNeighbor(currentSolution.getPenalizingPairs());
+					continue;
+				}
+				
 				ArrayList<Neighbor> neighborhood = getNeighborhood(currentSolution.getPenalizingPairs());
+				neighborsEvaluated += neighborhood.size();
 				
 				/*TODO debug*/ //System.out.println("Penalizing pairs: " + currentSolution.getPenalizingPairs());
 				/*TODO debug (neighborhood)*/ //System.out.println("Neighborhood: " + neighborhood);
@@ -111,7 +208,7 @@ public abstract class TabuSearch {
 									/*TODO debug*///System.err.println("The algorithm has not improved significantly over " + nonImprovingIterations + " iterations");
 									
 									// Increasing Tabu List size
-									tabuList.increaseSize(settings.tabuListIncrementSize);
+									increaseTabuListsSize();
 									nonImprovingIterations = 0;
 								}
 							} else {
@@ -129,7 +226,17 @@ public abstract class TabuSearch {
 								iteration != 0
 							)
 								// Increasing Tabu List size
-								tabuList.increaseSize(settings.tabuListIncrementSize);
+								increaseTabuListsSize();
+							
+							break;
+						
+						// time worsening criterion
+						case 3:
+							// Increasing Tabu List size once per elapsed time interval
+							if(System.nanoTime() - nextTabuListIncrement >= 0) {
+								increaseTabuListsSize();
+								nextTabuListIncrement += tabuListIncrementInterval;
+							}
 							
 							break;
 						
@@ -138,13 +245,30 @@ public abstract class TabuSearch {
 					}	
 				}
 					
+				// Tabu moves can only be chosen through the aspiration criterion
+				if(isTabu(validNeighbor))
+					++aspirations;
+				
 				move(validNeighbor);
 			}
 			/*TODO debug*/ //System.out.println("\n");
 			
 			++iteration;
+			
+			if(statistics != null) {
+				if(bestSolution != reportedBestSolution) {
+					reportedBestSolution = bestSolution;
+					statistics.bestSolutionFound(getClass().getSimpleName(), bestSolution.getFitness());
+				}
+				
+				if((iteration & (SolverStatistics.REPORTING_PERIOD - 1)) == 0)
+					reportProgress();
+			}
 		}
 		
+		if(statistics != null)
+			reportProgress();
+		
 		return bestSolution;
 	}
 	
@@ -158,7 +282,46 @@ public abstract class TabuSearch {
 	 * 					3)	the corresponding fitness value
 	 * 					Return null if no feasible neighbor is found.
 	 */
-	private ArrayList<Neighbor> getNeighborhood(ArrayList<ExamPair> penalizingPairs)
+	protected ArrayList<Neighbor> getNeighborhood(ArrayList<ExamPair> penalizingPairs)
+		throws IllegalArgumentException
+	{
+		// Neighborhood corresponding all exam pairs
+		ArrayList<Neighbor> neighborhood = exploreNeighborhood(penalizingPairs, new NeighborList()).neighbors;
+		
+		if(!neighborhood.isEmpty())
+			// Ordering the neighborhood by increasing fitness value
+			Collections.sort(neighborhood);
+		
+		return neighborhood;
+	}
+	
+	/**
+	 * Single-pass alternative to getNeighborhood() followed by
+	 * selectBestValidNeighbor(): neighbors are evaluated without
+	 * being stored or sorted, keeping only the best one that can
+	 * be used for the next move according to the Tabu list.
+	 * @param penalizingPairs	exam pairs used for neighborhood generation.
+	 * @return					the best acceptable neighbor, or null if
+	 * 							no valid neighbor was found.
+	 */
+	Neighbor selectBestAdmissibleNeighbor(ArrayList<ExamPair> penalizingPairs)
+		throws IllegalArgumentException
+	{
+		BestAdmissibleNeighbor collector = exploreNeighborhood(penalizingPairs, new BestAdmissibleNeighbor());
+		neighborsEvaluated += collector.neighbors;
+		tabuHits += collector.tabuHits;
+		
+		return collector.getBest();
+	}
+	
+	/**
+	 * Generates the neighborhood corresponding to the given exam pairs,
+	 * handing every feasible neighbor to the given collector.
+	 * @param penalizingPairs	exam pairs used for neighborhood generation.
+	 * @param collector			receives every feasible neighbor.
+	 * @return					the collector holding the whole neighborhood.
+	 */
+	private <C extends NeighborCollector<C>> C exploreNeighborhood(ArrayList<ExamPair> penalizingPairs, C collector)
 		throws IllegalArgumentException
 	{
 		// Arguments checking
@@ -170,8 +333,8 @@ public abstract class TabuSearch {
 		else if(penalizingPairs.isEmpty())
 			throw new IllegalArgumentException("Empty neighborhood");
 		
-		// Neighborhood corresponding all exam pairs
-		ArrayList<Neighbor> neighborhood = new ArrayList<Neighbor>();
+		// Chains cached by previous explorations become stale
+		++explorations;
 		
 		// Checks if all exams have to be considered for the neighborhood generation
 		boolean considerAllPairs = (settings.neighborhoodGeneratingPairsPercentage == 1) ? true : false;
@@ -185,30 +348,31 @@ public abstract class TabuSearch {
 			 *  For each penalizing exams, examined only once even if it appears
 			 *  multiple times in the penalizingPairs data structure
 			 */
-			for(int movingExam: penalizingExams) {
-				// For any other timeslot
-				for(int newTimeslot = 0; newTimeslot < instance.getTmax(); ++newTimeslot) {
-					// Skipping the current timeslots
-					if(newTimeslot != currentSolution.getTimeslot(movingExam)) {
-						try {
-							neighborhood.add(currentSolution.getNeighbor(movingExam, newTimeslot));
-						} catch (InvalidMoveException e) {
-							continue;
-						}
-					}
-				}
+			if(neighborhoodEvaluationPool == null) {
+				for(int movingExam: penalizingExams)
+					addAllTimeslotsNeighbors(movingExam, collector);
+			} else {
+				// Penalizing exams are split among the evaluating threads
+				int[] movingExams = new int[penalizingExams.size()];
+				int i = 0;
+				for(int movingExam: penalizingExams)
+					movingExams[i++] = movingExam;
+				
+				collector.merge(neighborhoodEvaluationPool.invoke(
+					new NeighborhoodEvaluation<C>(collector, movingExams, 0, movingExams.length)
+				));
 			}
 		} else {
 			for(ExamPair examPair: penalizingPairs) {
 				// Obtaining a feasible neighbor for exam1 using a random timeslot
 				Neighbor neighbor1 = getFeasibleNeighborRandomly(examPair.getExam1());
 				if(neighbor1 != null)
-					neighborhood.add(neighbor1);
+					collector.collect(neighbor1);
 				
 				// Obtaining a feasible neighbor for exam1 using a random timeslot
 				Neighbor neighbor2 = getFeasibleNeighborRandomly(examPair.getExam2());
 				if(neighbor2 != null)
-					neighborhood.add(neighbor2);
+					collector.collect(neighbor2);
 				
 				// Counting exam pairs to be considered for the neighborhood generation
 				if(!considerAllPairs && --neighborhoodGeneratingPairs == 0)
@@ -216,11 +380,265 @@ public abstract class TabuSearch {
 			}
 		}
 		
-		if(!neighborhood.isEmpty())
-			// Ordering the neighborhood by increasing fitness value
-			Collections.sort(neighborhood);
+		return collector;
+	}
+	
+	/**
+	 * Hands to the given collector all feasible neighbors obtained by
+	 * moving the given exam to any other timeslot.
+	 * The current solution is only read, so that different exams can
+	 * be evaluated concurrently.
+	 * @param movingExam	exam to be rescheduled.
+	 * @param collector		receives the neighbors.
+	 */
+	private void addAllTimeslotsNeighbors(int movingExam, NeighborCollector<?> collector) {
+		// For any other timeslot
+		for(int newTimeslot = 0; newTimeslot < instance.getTmax(); ++newTimeslot) {
+			// Skipping the current timeslots
+			if(newTimeslot != currentSolution.getTimeslot(movingExam)) {
+				float neighborFitness = currentSolution.evaluateMove(movingExam, newTimeslot);
+				
+				// Skipping infeasible neighbors
+				if(neighborFitness != Solution.INFEASIBLE_MOVE)
+					collector.collect(new Neighbor(movingExam, newTimeslot, neighborFitness));
+				
+				// The exams preventing the relocation are moved along
+				else if(settings.kempeChainMaxSize > 0)
+					addKempeChainNeighbor(movingExam, newTimeslot, collector);
+			}
+		}
 		
-		return neighborhood;
+		if(settings.swapMoves)
+			addSwapNeighbors(movingExam, collector);
+	}
+	
+	/**
+	 * Hands to the given collector all feasible swap moves between the
+	 * given exam and the exams in conflict with it: a relocation blocked
+	 * by a single conflicting exam becomes a swap with that exam.
+	 * Swaps whose other exam is not the only blocking one are rejected
+	 * by evaluateSwap() in constant time.
+	 * @param movingExam	exam to be rescheduled.
+	 * @param collector		receives the neighbors.
+	 */
+	private void addSwapNeighbors(int movingExam, NeighborCollector<?> collector) {
+		int[] conflictIndex = instance.getConflictIndex();
+		int[] conflictingExams = instance.getConflictingExams();
+		int oldTimeslot = currentSolution.getTimeslot(movingExam);
+		
+		for(int c = conflictIndex[movingExam]; c < conflictIndex[movingExam + 1]; ++c) {
+			int swappedExam = conflictingExams[c];
+			float neighborFitness = currentSolution.evaluateSwap(movingExam, swappedExam);
+			
+			// Skipping infeasible neighbors
+			if(neighborFitness != Solution.INFEASIBLE_MOVE)
+				collector.collect(new Neighbor(
+					movingExam, currentSolution.getTimeslot(swappedExam),
+					swappedExam, oldTimeslot,
+					neighborFitness
+				));
+		}
+	}
+	
+	/**
+	 * Hands to the given collector the move of the Kempe chain starting
+	 * from the given exam towards a timeslot where it cannot be relocated,
+	 * unless the chain is too long. Chains of two exams are skipped when
+	 * swap moves are enabled, since they are the same moves.
+	 * Each chain is built and evaluated once per exploration: its other
+	 * exams reuse the cached fitness.
+	 * @param movingExam	exam starting the chain.
+	 * @param newTimeslot	timeslot in which the exam would end.
+	 * @param collector		receives the neighbor.
+	 */
+	private void addKempeChainNeighbor(int movingExam, int newTimeslot, NeighborCollector<?> collector) {
+		KempeChain chain = kempeChains.get();
+		chain.prepareCache(explorations);
+		
+		float neighborFitness;
+		if(chain.isCached(movingExam, newTimeslot))
+			neighborFitness = chain.getCachedFitness(movingExam, newTimeslot);
+		else {
+			if(	!chain.build(currentSolution, movingExam, newTimeslot, settings.kempeChainMaxSize) ||
+				(settings.swapMoves && chain.size() == 2)
+			)
+				neighborFitness = Solution.INFEASIBLE_MOVE;
+			else
+				neighborFitness = currentSolution.evaluateKempeChain(chain);
+			
+			chain.cache(neighborFitness);
+		}
+		
+		// Skipped chains
+		if(neighborFitness != Solution.INFEASIBLE_MOVE)
+			collector.collect(new Neighbor(movingExam, newTimeslot, neighborFitness, true));
+	}
+	
+	/**
+	 * Receives the feasible neighbors found while exploring a neighborhood.
+	 * @param <C>	the collector type itself, so that partial collectors
+	 * 				filled by different threads can be merged.
+	 */
+	private interface NeighborCollector<C extends NeighborCollector<C>> {
+		void collect(Neighbor neighbor);
+		
+		/**
+		 * @return	an empty collector of the same kind.
+		 */
+		C newCollector();
+		
+		/**
+		 * Adds all neighbors received by another collector.
+		 * @param other		partial collector to be merged into this one,
+		 * 					having received neighbors coming after its own.
+		 */
+		void merge(C other);
+	}
+	
+	/**
+	 * Collector storing the whole neighborhood.
+	 */
+	private static class NeighborList implements NeighborCollector<NeighborList> {
+		private final ArrayList<Neighbor> neighbors = new ArrayList<Neighbor>();
+		
+		@Override
+		public void collect(Neighbor neighbor) {
+			neighbors.add(neighbor);
+		}
+		
+		@Override
+		public NeighborList newCollector() {
+			return new NeighborList();
+		}
+		
+		@Override
+		public void merge(NeighborList other) {
+			neighbors.addAll(other.neighbors);
+		}
+	}
+	
+	/**
+	 * Collector keeping just the best neighbor that is not in the Tabu
+	 * list and the best one that is, but satisfies the aspiration criterion.
+	 * The Tabu list is checked only for neighbors improving the best
+	 * admissible one found so far.
+	 */
+	private class BestAdmissibleNeighbor implements NeighborCollector<BestAdmissibleNeighbor> {
+		private Neighbor bestNonTabu;
+		private Neighbor bestAspirating;
+		
+		/**
+		 * Neighbors received and neighbors found in the Tabu list.
+		 */
+		private int neighbors;
+		private int tabuHits;
+		
+		@Override
+		public void collect(Neighbor neighbor) {
+			++neighbors;
+			consider(neighbor);
+		}
+		
+		private void consider(Neighbor neighbor) {
+			if(bestNonTabu != null && neighbor.getFitness() >= bestNonTabu.getFitness())
+				return;
+			
+			// This move is not in the Tabu List
+			if(!isTabu(neighbor))
+				bestNonTabu = neighbor;
+			
+			// This move is in the Tabu List: aspiration criterion
+			else {
+				++tabuHits;
+				
+				if(	neighbor.getFitness() < bestSolution.getFitness() &&
+					(bestAspirating == null || neighbor.getFitness() < bestAspirating.getFitness())
+				)
+					bestAspirating = neighbor;
+			}
+		}
+		
+		@Override
+		public BestAdmissibleNeighbor newCollector() {
+			return new BestAdmissibleNeighbor();
+		}
+		
+		/**
+		 * The other collector received neighbors coming after the ones of
+		 * this collector, so ties are won by this one as in a sequential
+		 * exploration. Best neighbors have already been checked against the
+		 * Tabu list by the other collector, hence they are only compared.
+		 */
+		@Override
+		public void merge(BestAdmissibleNeighbor other) {
+			neighbors += other.neighbors;
+			tabuHits += other.tabuHits;
+			
+			if(other.bestNonTabu != null && (bestNonTabu == null || other.bestNonTabu.getFitness() < bestNonTabu.getFitness()))
+				bestNonTabu = other.bestNonTabu;
+			if(other.bestAspirating != null && (bestAspirating == null || other.bestAspirating.getFitness() < bestAspirating.getFitness()))
+				bestAspirating = other.bestAspirating;
+		}
+		
+		/**
+		 * @return	the best acceptable neighbor, or null if none.
+		 */
+		public Neighbor getBest() {
+			if(bestAspirating != null && (bestNonTabu == null || bestAspirating.getFitness() < bestNonTabu.getFitness()))
+				return bestAspirating;
+			
+			return bestNonTabu;
+		}
+	}
+	
+	/**
+	 * Fork/join task evaluating the neighbors of a range of penalizing
+	 * exams, splitting the range until it is small enough.
+	 * Each leaf task fills its own collector, then partial collectors
+	 * are merged.
+	 */
+	@SuppressWarnings("serial")
+	private class NeighborhoodEvaluation<C extends NeighborCollector<C>> extends RecursiveTask<C> {
+		/**
+		 * Ranges having at most this number of exams are
+		 * evaluated sequentially.
+		 */
+		private static final int SEQUENTIAL_THRESHOLD = 8;
+		
+		private final C prototype;
+		private final int[] movingExams;
+		private final int from, to;
+		
+		NeighborhoodEvaluation(C prototype, int[] movingExams, int from, int to) {
+			this.prototype = prototype;
+			this.movingExams = movingExams;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected C compute() {
+			if(to - from <= SEQUENTIAL_THRESHOLD) {
+				C collector = prototype.newCollector();
+				
+				for(int i = from; i < to; ++i)
+					addAllTimeslotsNeighbors(movingExams[i], collector);
+				
+				return collector;
+			}
+			
+			int middle = (from + to) >>> 1;
+			NeighborhoodEvaluation<C> left = new NeighborhoodEvaluation<C>(prototype, movingExams, from, middle);
+			left.fork();
+			
+			C rightCollector = new NeighborhoodEvaluation<C>(prototype, movingExams, middle, to).compute();
+			
+			// Keeping the order of a sequential exploration
+			C collector = left.join();
+			collector.merge(rightCollector);
+			
+			return collector;
+		}
 	}
 	
 	/**
@@ -236,24 +654,21 @@ public abstract class TabuSearch {
 		// One-time-only random timeslot
 		int randomTimeslot;
 		
-		// The randomly-generated neighbor will be assigned to this variable (if feasible)
-		Neighbor neighbor = null;
-		
 		do {
 			// Random timeslot index generation
-			randomTimeslot = Utility.getRandomInt(0, instance.getTmax());
+			randomTimeslot = random.nextInt(0, instance.getTmax());
 		} while(currentSolution.getTimeslot(exam) == randomTimeslot);
 		
 		if(currentSolution.getTimeslot(exam) == randomTimeslot)
 			throw new AssertionError("Exam " + exam + " is not moving");
 		
-		try {
-			neighbor = currentSolution.getNeighbor(exam, randomTimeslot);
-		} catch(InvalidMoveException e) {
-			// If no feasible neighbor is found, return null.
-		}
+		float neighborFitness = currentSolution.evaluateMove(exam, randomTimeslot);
 		
-		return neighbor;
+		// If no feasible neighbor is found, return null.
+		if(neighborFitness == Solution.INFEASIBLE_MOVE)
+			return null;
+		
+		return new Neighbor(exam, randomTimeslot, neighborFitness);
 	}
 	
 	/**
@@ -301,7 +716,8 @@ public abstract class TabuSearch {
 		for(Neighbor neighbor: neighborhood) {
 			
 			// This move is in the Tabu List
-			if(tabuList.find(neighbor) != -1) {
+			if(isTabu(neighbor)) {
+				++tabuHits;
 				/*TODO debug*/ //System.out.print("Neighbor " + neighbor + " has been found in the Tabu List. ");
 				/*TODO debug*/ //System.out.println("Best solution's fitness is " + bestSolution.getFitness());
 				
@@ -337,61 +753,131 @@ public abstract class TabuSearch {
 	protected abstract ExamPair getNextPair(int nextPairIndex) throws IndexOutOfBoundsException;
 	
 	/**
-	 * TODO JavaDoc
-	 * @param neighbor
+	 * Performs the chosen move on the current solution, forbidding
+	 * the moving exams to go back to their old timeslots for a while.
+	 * @param neighbor	the neighbor chosen by the algorithm.
 	 */
-	private void move(Neighbor neighbor) {
-		// Performing the actual move on the current solution
-		currentSolution.move(neighbor);
+	void move(Neighbor neighbor) {
+		if(neighbor.isKempeChain()) {
+			moveKempeChain(neighbor);
+			return;
+		}
 		
 		// Retrieving current solution's infos before performing the move
 		int movingExam = neighbor.getMovingExam();
 		int oldTimeslot = currentSolution.getTimeslot(movingExam);
 		
-		// Inserting this move in the Tabu List
+		// Performing the actual move on the current solution, in a single pass
+		currentSolution.move(neighbor);
+		
+		// Inserting the reverse move in the Tabu List
 		tabuList.add(new Neighbor(movingExam, oldTimeslot));
 		
+		// A swap is reversed by moving each exam back
+		if(neighbor.isSwap())
+			tabuList.add(new Neighbor(neighbor.getSwappedExam(), neighbor.getNewTimeslot()));
+		
 		/*TODO debug (tabu list)*/ //System.out.print("Tabu list: "+ tabuList);
 		
-		updateSolution(movingExam, oldTimeslot, neighbor);
+		// Updating bestSolution if necessary
+		updateBestSolution();
 	}
 	
 	/**
-	 * update the current solution with the chosen move
-	 * @param int						the exam to be moved
-	 * @param oldTimeSlod				the time-slot where the exam is moved
-	 * @param neighbor					the neighbor chosen by the algorithm
+	 * Moves the Kempe chain of the chosen neighbor, forbidding each
+	 * chain exam to start a chain towards its old timeslot for a while.
+	 * @param neighbor	the Kempe chain neighbor chosen by the algorithm.
 	 */
-	private void updateSolution(int movingExam, int oldTimeslot, Neighbor neighbor) {		
-		// Updating the current solution
-		currentSolution.updateTe(movingExam, oldTimeslot, neighbor.getNewTimeslot());
-		currentSolution.updateSchedule(neighbor); 
-		currentSolution.setFitness(neighbor.getFitness());
-		currentSolution.updatePenalizingPairs(neighbor);
+	private void moveKempeChain(Neighbor neighbor) {
+		KempeChain chain = kempeChains.get();
+		chain.build(currentSolution, neighbor.getMovingExam(), neighbor.getNewTimeslot(), instance.getE());
 		
-		if(currentSolution instanceof OptimizationSolution)
-			((OptimizationSolution)currentSolution).initializeDistanceMatrix();
+		// Any chain exam would move the same chain back
+		for(int i = 0; i < chain.size(); ++i) {
+			int exam = chain.getExam(i);
+			kempeTabuList.add(exam, currentSolution.getTimeslot(exam));
+		}
+		
+		currentSolution.moveKempeChain(chain);
 		
 		// Updating bestSolution if necessary
 		updateBestSolution();
 	}
 	
+	/**
+	 * Tells whether a move is forbidden, checking the
+	 * Tabu List of its kind.
+	 * @param neighbor	move to be checked.
+	 * @return			true if the move is tabu.
+	 */
+	private boolean isTabu(Neighbor neighbor) {
+		if(neighbor.isKempeChain())
+			return kempeTabuList.contains(neighbor);
+		
+		return tabuList.contains(neighbor);
+	}
+	
+	/**
+	 * Increases the size of both Tabu Lists, up to their maximum size.
+	 */
+	private void increaseTabuListsSize() {
+		tabuList.increaseSize(settings.tabuListIncrementSize);
+		kempeTabuList.increaseSize(settings.tabuListIncrementSize);
+	}
+	
 	/**
 	 * Updates the best solution with the current one
 	 * if necessary
 	 */
 	protected abstract void updateBestSolution();
-
+	
+	/**
+	 * Makes this Tabu Search instance publish its improvements on a
+	 * board shared with other instances, starting from its current
+	 * best solution.
+	 * @param bestSolutionBoard		the shared board.
+	 */
+	public void setBestSolutionBoard(BestSolutionBoard bestSolutionBoard) {
+		this.bestSolutionBoard = bestSolutionBoard;
+		publishBestSolution();
+	}
+	
+	/**
+	 * Makes this Tabu Search instance report its progress.
+	 * @param statistics	progress counters of the job.
+	 */
+	public void setStatistics(SolverStatistics statistics) {
+		this.statistics = statistics;
+	}
+	
 	/**
-	 * Stopping condition used in the optimization
-	 * problem, called by a timer.
+	 * Reports the local counters accumulated since the last report.
 	 */
-	public static void stopExecution() {
-		TIMER_EXPIRED = true;
+	private void reportProgress() {
+		statistics.tabuSearchProgress(
+			getClass().getSimpleName(),
+			iteration - reportedIterations,
+			neighborsEvaluated,
+			tabuHits,
+			aspirations,
+			tabuList.getSize(),
+			currentSolution.getFitness(),
+			bestSolution.getFitness()
+		);
+		
+		reportedIterations = iteration;
+		neighborsEvaluated = 0;
+		tabuHits = 0;
+		aspirations = 0;
 	}
 	
-	public static boolean getTimerExpired() {
-		return TIMER_EXPIRED;
+	/**
+	 * Publishes the best solution on the shared board, if any.
+	 * The best solution object must not be modified afterwards.
+	 */
+	protected void publishBestSolution() {
+		if(bestSolutionBoard != null)
+			bestSolutionBoard.publish(bestSolution);
 	}
 	
 	class MovingAverage {
@@ -20,6 +20,48 @@ public class TabuSettings extends Settings {
 	 */
 	public boolean considerAllTimeslots;
 	
+	/**
+	 * If true, the optimization problem keeps, for each exam and each
+	 * timeslot, the penalty that exam would pay there, so that every
+	 * neighbor is evaluated in constant time.
+	 */
+	public boolean deltaMatrix;
+	
+	/**
+	 * Number of threads evaluating the neighborhood of each iteration
+	 * when all timeslots are considered. 1 means sequential evaluation.
+	 * Values greater than 1 are meant for a single Tabu Search instance
+	 * running alone, since each instance gets its own threads, and
+	 * require a solution supporting concurrent evaluation (see
+	 * Solution.prepareConcurrentEvaluation()).
+	 */
+	public int neighborhoodEvaluationThreads;
+	
+	/**
+	 * If true, each iteration evaluates the neighborhood in a single pass,
+	 * keeping only the best neighbor allowed by the Tabu List instead of
+	 * storing and sorting the whole neighborhood.
+	 */
+	public boolean streamingNeighborSelection;
+	
+	/**
+	 * If true, when all timeslots are considered, the neighborhood also
+	 * contains swap moves exchanging the timeslots of a penalizing exam
+	 * and of the only exam in conflict with it in another timeslot,
+	 * i.e. the relocations that are infeasible because of a single exam.
+	 */
+	public boolean swapMoves;
+	
+	/**
+	 * When all timeslots are considered, each relocation that is
+	 * infeasible is replaced by the move of the Kempe chain it starts,
+	 * which exchanges the timeslots of all exams in conflict with each
+	 * other across the two timeslots, provided that the chain does not
+	 * contain more than this number of exams. 0 disables Kempe chain moves.
+	 * Kempe chain moves have their own Tabu List.
+	 */
+	public int kempeChainMaxSize;
+	
 	/**
 	 * Tabu List initial size.
 	 */
@@ -77,12 +119,20 @@ public class TabuSettings extends Settings {
 	
 	/**
 	 * Number of threads that will be used to populate the solution space.
+	 * When solving the optimization problem, it is the number of Tabu
+	 * Search walkers running concurrently, each one starting from a
+	 * different feasible solution.
 	 */
 	protected int numberOfThreads;
 	
 	public TabuSettings(Settings commonSettings,
 						double neighborhoodGeneratingPairsPercentage,
 						boolean considerAllTimeslots, 
+						boolean deltaMatrix,
+						int neighborhoodEvaluationThreads,
+						boolean streamingNeighborSelection,
+						boolean swapMoves,
+						int kempeChainMaxSize,
 						int tabuListInitialSize, 
 						boolean dynamicTabuList, 
 						int worseningCriterion,
@@ -98,6 +148,11 @@ public class TabuSettings extends Settings {
 				
 		this.neighborhoodGeneratingPairsPercentage = neighborhoodGeneratingPairsPercentage;
 		this.considerAllTimeslots = considerAllTimeslots;
+		this.deltaMatrix = deltaMatrix;
+		this.neighborhoodEvaluationThreads = neighborhoodEvaluationThreads;
+		this.streamingNeighborSelection = streamingNeighborSelection;
+		this.swapMoves = swapMoves;
+		this.kempeChainMaxSize = kempeChainMaxSize;
 		this.tabuListInitialSize = tabuListInitialSize;
 		this.dynamicTabuList = dynamicTabuList;
 		this.worseningCriterion = worseningCriterion;
@@ -17,7 +17,9 @@ public class GeneticInitialization extends GeneticAlgorithm {
 		population = new InitializationPopulation(
 			instance,
 			settings.initialPopulationSize,
-			settings.firstRandomSolution
+			settings.firstRandomSolution,
+			Runtime.getRuntime().availableProcessors(),
+			settings.seed
 		);
 	}
 }
@@ -1,17 +1,24 @@
 package it.polito.oma.etp.solver.initialization;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
 import it.polito.oma.etp.reader.InstanceData;
 import it.polito.oma.etp.solver.Population;
-import it.polito.oma.etp.solver.Settings;
 import it.polito.oma.etp.solver.Solution;
 
 public class InitializationPopulation extends Population {
 	public InitializationPopulation(InstanceData instance) {
 		super(instance);
-		
-		// By now, there's not worst and better solution
-		bestSolution = Double.MAX_VALUE;
-		worstSolution = 0;
 	}
 	
 	/**
@@ -20,11 +27,11 @@ public class InitializationPopulation extends Population {
 	 * @param instance					instance problem data.
 	 * @param initialPopulationSize		how many chromosome the initial population should have.
 	 * @param firstRandomSolution		true if initial infeasible solutions must be computed randomly.
-	 * 									If false, our ad-hoc deterministic algorithm tries to obtain 
+	 * 									If false, our ad-hoc deterministic algorithm tries to obtain
 	 * 									an initial solution with the minimum number of conflicts.
 	 */
-	public InitializationPopulation(	InstanceData instance, 
-										int initialPopulationSize, 
+	public InitializationPopulation(	InstanceData instance,
+										int initialPopulationSize,
 										boolean firstRandomSolution
 	) {
 		this(instance);
@@ -35,19 +42,128 @@ public class InitializationPopulation extends Population {
 			InitializationSolution tempSolution = Solution.generateInfeasibleSolution(instance, firstRandomSolution);
 			
 			// Adding an infeasible solution to the population
-			chromosomes.add(tempSolution);
+			add(tempSolution);
+		}
+	}
+	
+	/**
+	 * Parallel version of the random initial population constructor.
+	 * @param instance					instance problem data.
+	 * @param initialPopulationSize		how many chromosome the initial population should have.
+	 * @param firstRandomSolution		true if initial infeasible solutions must be computed randomly.
+	 * @param threads					how many chromosomes are built at the same time.
+	 * @param seed						seed from which each chromosome's random stream is split.
+	 */
+	public InitializationPopulation(	InstanceData instance,
+										int initialPopulationSize,
+										boolean firstRandomSolution,
+										int threads,
+										long seed
+	) {
+		this(
+			instance,
+			initialPopulationSize,
+			threads,
+			seed,
+			random -> Solution.generateInfeasibleSolution(instance, firstRandomSolution, random)
+		);
+	}
+	
+	/**
+	 * Population constructor building chromosomes concurrently, waiting
+	 * for all of them.
+	 * @see #InitializationPopulation(InstanceData, int, int, long, Function, double)
+	 */
+	public InitializationPopulation(	InstanceData instance,
+										int initialPopulationSize,
+										int threads,
+										long seed,
+										Function<SplittableRandom, InitializationSolution> chromosomeGenerator
+	) {
+		this(instance, initialPopulationSize, threads, seed, chromosomeGenerator, Double.POSITIVE_INFINITY);
+	}
+	
+	/**
+	 * Population constructor building chromosomes concurrently.
+	 * The i-th chromosome receives the i-th random stream split from
+	 * the given seed, so that the population does not depend on how
+	 * threads are scheduled. Chromosomes are added by the calling thread
+	 * once the construction is over, in the same order, hence total
+	 * fitness measures and best/worst solutions need no synchronization.
+	 * Once the first feasible chromosome has been built, the others are
+	 * waited for only for a while: chromosomes still being built are then
+	 * interrupted and left out of the population.
+	 * @param instance					instance problem data.
+	 * @param initialPopulationSize		how many chromosome the initial population should have.
+	 * @param threads					how many chromosomes are built at the same time.
+	 * @param seed						seed from which each chromosome's random stream is split.
+	 * @param chromosomeGenerator		builds a chromosome from its own random stream, stopping
+	 * 									as soon as its thread is interrupted.
+	 * @param patience					how long the other chromosomes are waited for, as a
+	 * 									multiple of the time taken by the first feasible one;
+	 * 									infinite to wait for all of them.
+	 */
+	public InitializationPopulation(	InstanceData instance,
+										int initialPopulationSize,
+										int threads,
+										long seed,
+										Function<SplittableRandom, InitializationSolution> chromosomeGenerator,
+										double patience
+	) {
+		this(instance);
+		
+		long startTime = System.nanoTime();
+		
+		// One independent random stream for each chromosome
+		SplittableRandom random = new SplittableRandom(seed);
+		
+		// Chromosomes in the order of their random streams, null if not built in time
+		InitializationSolution[] chromosomes = new InitializationSolution[initialPopulationSize];
+		
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, initialPopulationSize)));
+		CompletionService<InitializationSolution> completionService = new ExecutorCompletionService<InitializationSolution>(executor);
+		Map<Future<InitializationSolution>, Integer> chromosomeIndexes = new HashMap<Future<InitializationSolution>, Integer>();
+		try {
+			for(int i = 0; i < initialPopulationSize; ++i) {
+				SplittableRandom chromosomeRandom = random.split();
+				chromosomeIndexes.put(completionService.submit(() -> chromosomeGenerator.apply(chromosomeRandom)), i);
+			}
 			
-			// Total fitness measures update
-			totalFitness += tempSolution.getFitness();
-			totalInverseFitness += 1/tempSolution.getFitness();
+			// Set once the first feasible chromosome has been built
+			long deadline = 0;
+			boolean hasDeadline = false;
 			
-			// Initializing bestSolution
-			if(bestSolution > tempSolution.getFitness())
-				bestSolution = tempSolution.getFitness();
+			for(int completed = 0; completed < initialPopulationSize; ++completed) {
+				Future<InitializationSolution> chromosome;
+				if(!hasDeadline)
+					chromosome = completionService.take();
+				else if((chromosome = completionService.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) == null)
+					break;
+				
+				InitializationSolution solution = chromosome.get();
+				chromosomes[chromosomeIndexes.get(chromosome)] = solution;
+				
+				if(!hasDeadline && !Double.isInfinite(patience) && solution.isFeasible()) {
+					long now = System.nanoTime();
+					deadline = now + (long)((now - startTime) * patience);
+					hasDeadline = true;
+				}
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while building the initial population", e);
+		} catch(ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException)
+				throw (RuntimeException)e.getCause();
 			
-			// Initializing worstSolution
-			if(worstSolution < tempSolution.getFitness())
-				worstSolution = tempSolution.getFitness();
+			throw new IllegalStateException("Cannot build the initial population", e.getCause());
+		} finally {
+			// Chromosomes not built in time are interrupted
+			executor.shutdownNow();
 		}
+		
+		for(InitializationSolution chromosome: chromosomes)
+			if(chromosome != null)
+				add(chromosome);
 	}
 }
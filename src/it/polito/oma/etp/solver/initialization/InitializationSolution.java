@@ -5,13 +5,11 @@ import java.util.Iterator;
 
 import it.polito.oma.etp.reader.InstanceData;
 import it.polito.oma.etp.solver.ExamPair;
-import it.polito.oma.etp.solver.InvalidMoveException;
-import it.polito.oma.etp.solver.Neighbor;
 import it.polito.oma.etp.solver.Solution;
 
 public class InitializationSolution extends Solution {
-	public InitializationSolution(InstanceData instance, int[][] te) {
-		super(instance, te);
+	public InitializationSolution(InstanceData instance, int[] schedule) {
+		super(instance, schedule);
 	}
 	
 	public InitializationSolution(Solution s) {
@@ -21,23 +19,18 @@ public class InitializationSolution extends Solution {
 	/**
 	 * Constructor used for the first infeasible solution.
 	 * @param instance
-	 * @param te
 	 * @param schedule
 	 * @param fitness
 	 * @param penalizingPairs
 	 */
-	public InitializationSolution(InstanceData instance, int[][] te, int[] schedule, float fitness,
+	public InitializationSolution(InstanceData instance, int[] schedule, float fitness,
 			ArrayList<ExamPair> penalizingPairs) {
-		super(instance, te, schedule, fitness, penalizingPairs);
+		super(instance, schedule, fitness, penalizingPairs);
 	}
 
 	@Override
 	/*TODO has to be private*/public void initializeFitness() {
-		fitness = Float.valueOf(penalizingPairs.size());
-	}
-	
-	protected void initializeDistanceMatrix(){
-	
+		fitness = penalizingPairs.size();
 	}
 	
 	/**
@@ -48,27 +41,34 @@ public class InitializationSolution extends Solution {
 	protected void initializePenalizingPairs() {
 		// Instance data
 		int E = instance.getE();
-		int[][] N = instance.getN();
+		int[] conflictIndex = instance.getConflictIndex();
+		int[] conflictingExams = instance.getConflictingExams();
 		
 		penalizingPairs = new ArrayList<ExamPair>();
 
-		
+		// Only exams having students enrolled in both exams are visited
 		for(int exam1 = 0; exam1 < E; ++exam1)
-			for(int exam2 = exam1 + 1; exam2 < E; ++exam2)
-				if(	// If both exams have been scheduled in the same timeslot (conflicting)
-					schedule[exam1] == schedule[exam2] && 
+			for(int c = conflictIndex[exam1]; c < conflictIndex[exam1 + 1]; ++c) {
+				int exam2 = conflictingExams[c];
+				
+				if(	// Each pair is considered just once
+					exam2 > exam1 &&
 					
-					// If both exams have more than one student enrolled in both exams
-					N[exam1][exam2] > 0
+					// If both exams have been scheduled in the same timeslot (conflicting)
+					schedule[exam1] == schedule[exam2]
 				)
 					penalizingPairs.add(
 						new ExamPair(exam1, exam2)
 					);
+			}
 	}
 	
+	/**
+	 * The fitness, being the number of infeasibilities, is updated
+	 * along with the exam pairs.
+	 */
 	@Override
-	protected void updatePenalizingPairs(Neighbor neighbor) {
-		int movingExam = neighbor.getMovingExam();
+	protected void updatePenalizingPairs(int movingExam) {
 		
 		// Removing old exam pairs
 		Iterator<ExamPair> iterator = penalizingPairs.iterator();
@@ -80,21 +80,28 @@ public class InitializationSolution extends Solution {
 		}		
 		
 		// Adding new exam pairs
-		for(int otherExam = 0; otherExam < instance.getE(); ++otherExam) {
-			if(	// If both exams have been scheduled in the same timeslot (conflicting)
-				schedule[movingExam] == schedule[otherExam] && 
-				
-				// If both exams have more than one student enrolled in both exams
-				instance.getN()[movingExam][otherExam] > 0
-			)
+		int[] conflictIndex = instance.getConflictIndex();
+		int[] conflictingExams = instance.getConflictingExams();
+		
+		for(int c = conflictIndex[movingExam]; c < conflictIndex[movingExam + 1]; ++c) {
+			int otherExam = conflictingExams[c];
+			
+			// If both exams have been scheduled in the same timeslot (conflicting)
+			if(schedule[movingExam] == schedule[otherExam])
 				penalizingPairs.add(
 					new ExamPair(movingExam, otherExam)
 				);
 		}
+		
+		fitness = penalizingPairs.size();
 	}
 	
+	/**
+	 * Infeasibilities are what this solution minimizes, so
+	 * every move can be evaluated.
+	 */
 	@Override
-	protected Neighbor getNeighbor(int movingExam, int newTimeslot) throws InvalidMoveException {
+	public float evaluateMove(int movingExam, int newTimeslot) {
 		/**
 		 * Example:
 		 * _____________________________________
@@ -126,33 +133,29 @@ public class InitializationSolution extends Solution {
 		float neighborFitnessValue = fitness;
 		
 		// Instance variables
-		int E = instance.getE();
-		int[][] N = instance.getN();
+		int[] conflictIndex = instance.getConflictIndex();
+		int[] conflictingExams = instance.getConflictingExams();
 		
 		// Used when removing old infeasibilities
 		int oldTimeslot = schedule[movingExam];
 		
-		// Computing the neighbor's fitness value
-		for(int otherExam = 0; otherExam < E; ++otherExam)
-			if(	// Avoids confronting the movingExam with itself
-				otherExam != movingExam &&
-				
-				// If there are students enrolled in both exams (conflicting exams)
-				N[movingExam][otherExam] > 0
-			) {
-				// Removing old infeasibilities
-				if(	// If both exams have been scheduled in the same timeslot
-					te[oldTimeslot][otherExam] == 1
-				)
-					--neighborFitnessValue;
-				
-				// Adding new infeasibilities
-				if(	// If there will be new exams in the same timeslot
-					te[newTimeslot][otherExam] == 1
-				)
-					++neighborFitnessValue;
-			}
+		// Computing the neighbor's fitness value over conflicting exams only
+		for(int c = conflictIndex[movingExam]; c < conflictIndex[movingExam + 1]; ++c) {
+			int otherExam = conflictingExams[c];
+			
+			// Removing old infeasibilities
+			if(	// If both exams have been scheduled in the same timeslot
+				schedule[otherExam] == oldTimeslot
+			)
+				--neighborFitnessValue;
+			
+			// Adding new infeasibilities
+			if(	// If there will be new exams in the same timeslot
+				schedule[otherExam] == newTimeslot
+			)
+				++neighborFitnessValue;
+		}
 		
-		return new Neighbor(movingExam, newTimeslot, neighborFitnessValue);
+		return neighborFitnessValue;
 	}
 }
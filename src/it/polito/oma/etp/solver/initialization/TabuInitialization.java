@@ -1,5 +1,7 @@
 package it.polito.oma.etp.solver.initialization;
 
+import java.util.SplittableRandom;
+
 import it.polito.oma.etp.reader.InstanceData;
 import it.polito.oma.etp.solver.ExamPair;
 import it.polito.oma.etp.solver.Solution;
@@ -19,10 +21,20 @@ public class TabuInitialization extends TabuSearch {
 	 * 								conflicts.
 	 */
 	public TabuInitialization(InstanceData instance, TabuSettings settings) {
-		super(instance, settings);
+		this(instance, settings, new SplittableRandom());
+	}
+	
+	/**
+	 * Constructor computing the first infeasible solution from the
+	 * given random stream.
+	 * @param random	random stream used to compute the first infeasible
+	 * 					solution, if randomly, and to explore the neighborhood.
+	 */
+	public TabuInitialization(InstanceData instance, TabuSettings settings, SplittableRandom random) {
+		super(instance, settings, random);
 		
 		// Initially, the current solution is the initial one
-		currentSolution = Solution.generateInfeasibleSolution(instance, settings.firstRandomSolution);
+		currentSolution = Solution.generateInfeasibleSolution(instance, settings.firstRandomSolution, random);
 		
 		// By now this is our best solution
 		bestSolution = new InitializationSolution(currentSolution);
@@ -34,7 +46,7 @@ public class TabuInitialization extends TabuSearch {
 		
 		// Randomly is way more better
 		return currentSolution.getPenalizingPairs().get(
-			java.util.concurrent.ThreadLocalRandom.current().nextInt(0, currentSolution.getPenalizingPairs().size() + 1)
+			random.nextInt(0, currentSolution.getPenalizingPairs().size() + 1)
 		);  
 	}
 	
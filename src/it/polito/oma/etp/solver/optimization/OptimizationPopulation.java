@@ -23,19 +23,9 @@ public class OptimizationPopulation extends Population {
 		// Converting the population type
 		for(Solution chromosome: initialPopulation.getChromosomes()) {
 			OptimizationSolution tempSolution = new OptimizationSolution((InitializationSolution)chromosome);
-			chromosomes.add(tempSolution);
 			
-			// Total fitness measures update
-			totalFitness += tempSolution.getFitness();
-			totalInverseFitness += 1/tempSolution.getFitness();
-			
-			// Updating bestSolution
-			if(bestSolution > tempSolution.getFitness())
-				bestSolution = tempSolution.getFitness();
-			
-			// Updating worstSolution
-			if(worstSolution < tempSolution.getFitness())
-				worstSolution = tempSolution.getFitness();
+			// Total fitness measures and best/worst solutions are updated as well
+			add(tempSolution);
 		}
 	}
 }
@@ -2,37 +2,76 @@ package it.polito.oma.etp.solver.optimization;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.PriorityQueue;
 
 import it.polito.oma.etp.reader.InstanceData;
 import it.polito.oma.etp.solver.ExamPair;
-import it.polito.oma.etp.solver.InvalidMoveException;
-import it.polito.oma.etp.solver.Neighbor;
+import it.polito.oma.etp.solver.KempeChain;
 import it.polito.oma.etp.solver.Solution;
+import it.polito.oma.etp.solver.Utility;
 import it.polito.oma.etp.solver.initialization.InitializationSolution;
 
 public class OptimizationSolution extends Solution {
 	/**
-	 * Exams distance matrix, having element [i][j] set to a value k
-	 * when exams i and j are scheduled k timeslots apart.
+	 * Penalizing pairs indexed by exam: for each conflicting exam pair,
+	 * identified by the conflict graph slot of its lowest exam, the
+	 * position of that pair inside Solution.penalizingPairs, or -1 if
+	 * the pair is not currently penalizing.
 	 */
-	private int[][] distanceMatrix;
+	private int[] pairPositions;
 	
 	/**
-	 * The most penalizing exam pair is stored outside
-	 * Solution.penalizingPairs to avoid sorting all exam pairs
-	 * in case this one has a valid non-empty neighborhood.
+	 * Penalizing pairs ranked by decreasing conflict coefficient, so that
+	 * the most penalizing pair is available without sorting all exam pairs.
+	 * Pairs that stopped penalizing are discarded lazily when they reach
+	 * the head of the queue.
 	 */
-	private ExamPair mostPenalizingPair;
+	private PriorityQueue<ExamPair> pairsRanking;
 	
-	public OptimizationSolution(InstanceData instance, int[][] te) {
-		super(instance, te);
+	/**
+	 * Optional delta matrix: element [e][t] contains the penalty exam e
+	 * would pay if it was scheduled in timeslot t, given the timeslots of
+	 * all other exams. Values are not divided by the number of students,
+	 * so that they can be kept as exact integers.
+	 * It is null unless initializeDeltaMatrix() has been called.
+	 */
+	private int[][] examPenalties;
+	
+	/**
+	 * Conflict-count table: element [e][t] contains how many exams
+	 * in conflict with exam e are scheduled in timeslot t, so that
+	 * infeasible moves are detected in constant time.
+	 * Copies do not carry it: it is built again the first time a
+	 * copy evaluates a move.
+	 */
+	private int[][] examConflicts;
+	
+	/**
+	 * Objective function value not divided by the number of students.
+	 * Being an exact integer, it is updated move after move without
+	 * accumulating rounding errors, and fitness is always derived
+	 * from it.
+	 */
+	private long penalty;
+	
+	public OptimizationSolution(InstanceData instance, int[] schedule) {
+		super(instance, schedule);
 	}
 	
+	/**
+	 * Copy constructor. Neither the conflicts table nor the delta matrix
+	 * are copied: copies are mostly best solution snapshots, so they
+	 * should cost O(E) rather than O(E * Tmax). evaluateMove() rebuilds
+	 * the former and falls back to scanning the conflicting exams when
+	 * the latter is missing.
+	 * @param s		The solution to be copied.
+	 */
 	public OptimizationSolution(OptimizationSolution s) {
 		super(s);
 		
-		distanceMatrix = s.distanceMatrix;
-		mostPenalizingPair = new ExamPair(s.mostPenalizingPair);
+		pairPositions = Utility.cloneArray(s.pairPositions);
+		pairsRanking = new PriorityQueue<ExamPair>(s.pairsRanking);
+		penalty = s.penalty;
 	}
 	
 	/**
@@ -44,11 +83,6 @@ public class OptimizationSolution extends Solution {
 	public OptimizationSolution(InitializationSolution s) {
 		super(s);
 		
-		// New data structure needed in this type of solution
-		int E = instance.getE();
-		distanceMatrix = new int[E][E];
-		initializeDistanceMatrix();
-		
 		// From number of infeasibilities to penalizing fee
 		initializeFitness();
 		
@@ -57,143 +91,404 @@ public class OptimizationSolution extends Solution {
 		 * exam pairs causing penalties
 		 */
 		initializePenalizingPairs();
-	}
-
-	/**
-	 * Computes the exams distance matrix given the current
-	 * decision matrix te.
-	 */
-	public void initializeDistanceMatrix() {
-		int E = instance.getE();
-		distanceMatrix = new int[E][E];
 		
-		for(int i = 0; i < E; ++i)
-			for(int j = 0; j < E; ++j) {
-				int distance = Math.abs(schedule[i] - schedule[j]);
-				distanceMatrix[i][j] = distance; 
-			}
+		// Built now, since neighbors may then be evaluated concurrently
+		initializeConflictsTable();
 	}
-	
+
 	/**
 	 * Builds a ranking of most penalizing exams, mapping a 
 	 * conflict coefficient to an exam pair.
 	 * The higher, the more they are going to penalize.
 	 */
 	protected void initializePenalizingPairs() {
-		int[][] N = instance.getN();
 		int E = instance.getE();
+		int[] conflictIndex = instance.getConflictIndex();
+		int[] conflictingExams = instance.getConflictingExams();
 		
 		penalizingPairs = new ArrayList<ExamPair>();
+		pairsRanking = new PriorityQueue<ExamPair>();
+		pairPositions = new int[conflictingExams.length];
+		Arrays.fill(pairPositions, -1);
 		
-		/*	neighborhoodGeneratingPair initialization: the conflict coefficient is set to -1
-		 	so it will be replaced by the first conflicting exam pair as soon as possible */
-		mostPenalizingPair = new ExamPair(-1, -2, -1);
-		
-		// For each pair of exams (order does not matter)
+		// For each pair of conflicting exams (order does not matter)
 		for(int i = 0; i < E; ++i)
-			for(int j = i + 1; j < E; ++j) {
+			for(int c = conflictIndex[i]; c < conflictIndex[i + 1]; ++c) {
+				int j = conflictingExams[c];
+				
 				// Conflict coefficient is computed only when exams will generate a fee
-				if(arePenalized(i, j)) {
-					Float newCoefficient = new Float(N[i][j]) / getDistance(i, j);
-					
-					// Inserting the conflict coefficient for the corresponding exam pair
-					penalizingPairs.add(
-						// The corresponding exam pair with its conflict coefficient 
-						new ExamPair(i, j, newCoefficient)
-					);
-					
-					// Replacing the new most penalizing exam if necessary
-					// TODO what to do in case the most penalizing exam pair cannot be rescheduled?
-					if(newCoefficient > mostPenalizingPair.getConflictCoefficient())
-						// The corresponding exam pair with its conflict coefficient
-						mostPenalizingPair = new ExamPair(i, j, newCoefficient);
-				}
+				if(j > i && arePenalized(i, j))
+					addPenalizingPair(i, j, c);
 			}
 	}
 
+	/**
+	 * Only exam pairs involving the moving exam can change their
+	 * penalty, so just those ones are removed and inserted again.
+	 */
 	@Override
-	protected void updatePenalizingPairs(Neighbor neighbor) {
-		// TODO to improve eventually
-		initializePenalizingPairs();
+	protected void updatePenalizingPairs(int movingExam) {
+		int[] conflictIndex = instance.getConflictIndex();
+		int[] conflictingExams = instance.getConflictingExams();
+		
+		for(int c = conflictIndex[movingExam]; c < conflictIndex[movingExam + 1]; ++c) {
+			int otherExam = conflictingExams[c];
+			
+			// Pairs are stored in the slot of their lowest exam
+			int slot = (movingExam < otherExam) ? c : instance.getConflictSlot(otherExam, movingExam);
+			
+			// Removing the old exam pair
+			if(pairPositions[slot] != -1)
+				removePenalizingPair(slot);
+			
+			// Adding the new exam pair, if it generates a fee
+			if(arePenalized(movingExam, otherExam))
+				addPenalizingPair(Math.min(movingExam, otherExam), Math.max(movingExam, otherExam), slot);
+		}
+		
+		// Stale pairs are dropped once they outnumber the valid ones
+		if(pairsRanking.size() > 2 * penalizingPairs.size() + instance.getE())
+			pairsRanking = new PriorityQueue<ExamPair>(penalizingPairs);
+	}
+	
+	/**
+	 * Inserts a penalizing exam pair both in the pairs list and
+	 * in the ranking.
+	 * @param i		lowest exam index.
+	 * @param j		highest exam index.
+	 * @param slot	conflict graph slot of exam j among the conflicting
+	 * 				exams of exam i.
+	 */
+	private void addPenalizingPair(int i, int j, int slot) {
+		float coefficient = (float)instance.getConflictWeights()[slot] / getDistance(i, j);
+		
+		// The corresponding exam pair with its conflict coefficient
+		ExamPair examPair = new ExamPair(i, j, coefficient);
+		
+		pairPositions[slot] = penalizingPairs.size();
+		penalizingPairs.add(examPair);
+		pairsRanking.add(examPair);
 	}
 	
+	/**
+	 * Removes a penalizing exam pair from the pairs list in constant
+	 * time, moving the last pair in its place.
+	 * @param slot	conflict graph slot identifying the pair.
+	 */
+	private void removePenalizingPair(int slot) {
+		int position = pairPositions[slot];
+		ExamPair lastPair = penalizingPairs.remove(penalizingPairs.size() - 1);
+		
+		if(position < penalizingPairs.size()) {
+			penalizingPairs.set(position, lastPair);
+			pairPositions[instance.getConflictSlot(lastPair.getExam1(), lastPair.getExam2())] = position;
+		}
+		
+		pairPositions[slot] = -1;
+	}
+	
+	/**
+	 * Tells whether an exam pair in the ranking is still penalizing
+	 * the current solution.
+	 * @param examPair	exam pair to be checked.
+	 * @return			true if the exam pair is still in penalizingPairs.
+	 */
+	private boolean isCurrentPair(ExamPair examPair) {
+		int position = pairPositions[instance.getConflictSlot(examPair.getExam1(), examPair.getExam2())];
+		
+		return position != -1 && penalizingPairs.get(position) == examPair;
+	}
+	
+	/**
+	 * Computes from scratch how many conflicting exams each exam
+	 * would find in every timeslot.
+	 */
+	private void initializeConflictsTable() {
+		int E = instance.getE();
+		int[] conflictIndex = instance.getConflictIndex();
+		int[] conflictingExams = instance.getConflictingExams();
+		
+		examConflicts = new int[E][instance.getTmax()];
+		
+		for(int exam = 0; exam < E; ++exam)
+			for(int c = conflictIndex[exam]; c < conflictIndex[exam + 1]; ++c)
+				++examConflicts[exam][schedule[conflictingExams[c]]];
+	}
+	
+	/**
+	 * Checks in constant time whether moving an exam to a timeslot
+	 * keeps the solution feasible.
+	 * @param movingExam	exam to be rescheduled.
+	 * @param newTimeslot	timeslot in which it would end.
+	 * @return				true if no conflicting exam is scheduled
+	 * 						in the new timeslot.
+	 */
+	public boolean isFeasibleMove(int movingExam, int newTimeslot) {
+		if(examConflicts == null)
+			initializeConflictsTable();
+		
+		return examConflicts[movingExam][newTimeslot] == 0;
+	}
+	
+	/**
+	 * Builds the conflicts table now, so that evaluating a neighbor
+	 * never writes anything.
+	 */
 	@Override
-	/*TODO has to be private*/public void initializeFitness() {
+	public boolean prepareConcurrentEvaluation() {
+		if(examConflicts == null)
+			initializeConflictsTable();
+		
+		return true;
+	}
+	
+	/**
+	 * Enables the delta matrix mode, computing from scratch the penalty
+	 * each exam would pay in every timeslot.
+	 * From now on, neighbors are evaluated in constant time, while each
+	 * move costs O(degree * K) to keep the matrix up to date.
+	 */
+	public void initializeDeltaMatrix() {
 		int E = instance.getE();
-		int S = instance.getS();
+		int Tmax = instance.getTmax();
+		int[] conflictIndex = instance.getConflictIndex();
+		int[] conflictingExams = instance.getConflictingExams();
+		int[] conflictWeights = instance.getConflictWeights();
+		
+		examPenalties = new int[E][Tmax];
+		
+		for(int exam = 0; exam < E; ++exam)
+			for(int c = conflictIndex[exam]; c < conflictIndex[exam + 1]; ++c)
+				addToDeltaMatrix(exam, schedule[conflictingExams[c]], conflictWeights[c], 1);
+	}
+	
+	/**
+	 * Adds (or removes) the contribution of a conflicting exam scheduled in
+	 * the given timeslot to the delta matrix row of another exam.
+	 * @param exam		exam whose delta matrix row is updated.
+	 * @param timeslot	timeslot of the conflicting exam.
+	 * @param weight	number of students enrolled in both exams.
+	 * @param sign		1 to add the contribution, -1 to remove it.
+	 */
+	private void addToDeltaMatrix(int exam, int timeslot, int weight, int sign) {
 		int K = instance.getK();
-		int[][] N = instance.getN();
-		 
-		fitness = Float.valueOf(0);
+		int Tmax = instance.getTmax();
+		int[] distanceWeights = instance.getDistanceWeights();
+		int[] penalties = examPenalties[exam];
 		
-		for(int i = 0; i < E; ++i)
-			for(int j = i + 1; j < E; ++j)
-				if(i != j && distanceMatrix[i][j] > 0 && distanceMatrix[i][j] <= K) {
-					fitness += (float)(Math.pow(2, K - distanceMatrix[i][j]) * N[i][j] / S);
-					/*TODO debug*/ //System.out.print("fitness incremental" + fitness);
-				}
+		// Only timeslots less than K timeslots apart generate a fee
+		int from = Math.max(0, timeslot - K);
+		int to = Math.min(Tmax - 1, timeslot + K);
+		for(int t = from; t <= to; ++t)
+			if(t != timeslot)
+				penalties[t] += sign * distanceWeights[Math.abs(t - timeslot)] * weight;
 	}
 	
+	/**
+	 * Keeps the penalty, the conflicts table and the delta matrix,
+	 * if enabled, up to date when an exam changes its timeslot.
+	 */
 	@Override
-	public Neighbor getNeighbor(int movingExam, int newTimeslot) throws InvalidMoveException {
-		// This function's result, based on the current fitness value
-		float neighborFitnessValue = fitness;
+	protected void updateSchedule(int movingExam, int newTimeslot) {
+		int oldTimeslot = schedule[movingExam];
 		
-		// Instance variables
+		// Computed while the exam is still in its old timeslot
+		penalty += getDeltaPenalty(movingExam, newTimeslot);
+		fitness = toFitness(penalty);
+		
+		super.updateSchedule(movingExam, newTimeslot);
+		
+		int[] conflictIndex = instance.getConflictIndex();
+		int[] conflictingExams = instance.getConflictingExams();
+		int[] conflictWeights = instance.getConflictWeights();
+		
+		// Only rows of exams in conflict with the moving one change
+		for(int c = conflictIndex[movingExam]; c < conflictIndex[movingExam + 1]; ++c) {
+			int otherExam = conflictingExams[c];
+			
+			if(examConflicts != null) {
+				--examConflicts[otherExam][oldTimeslot];
+				++examConflicts[otherExam][newTimeslot];
+			}
+			
+			if(examPenalties != null) {
+				addToDeltaMatrix(otherExam, oldTimeslot, conflictWeights[c], -1);
+				addToDeltaMatrix(otherExam, newTimeslot, conflictWeights[c], 1);
+			}
+		}
+	}
+	
+	@Override
+	/*TODO has to be private*/public void initializeFitness() {
 		int E = instance.getE();
-		int S = instance.getS();
-		int K = instance.getK();
-		int[][] N = instance.getN();
-		
-		// Updating the new schedule according to the move
-		int[] newSchedule = Arrays.copyOf(schedule, E);
-		newSchedule[movingExam] = newTimeslot;
-		
-		// TODO these 2 for loops can be merged into a single one
-		
-		// Adding new penalties
-		for(int otherExam = 0; otherExam < E; ++otherExam) {
-			if(	// Avoids confronting the movingExam with itself
-				otherExam != movingExam &&
-					
-				// If there are students enrolled in both exams (conflicting exams)
-				N[movingExam][otherExam] > 0
-			) {
-				int distance = Math.abs(newSchedule[movingExam] - newSchedule[otherExam]);
-				
-				if(distance == 0)
-					throw new InvalidMoveException(
-						"exam " + (movingExam + 1) + " cannot be placed in timeslot number " + (newTimeslot + 1) +
-						" since it is in conflict with " + (otherExam + 1) +
-						" for having " + N[movingExam][otherExam] + " students enrolled in both exams."
-					);
+		int[] conflictIndex = instance.getConflictIndex();
+		int[] conflictingExams = instance.getConflictingExams();
+		int[] conflictWeights = instance.getConflictWeights();
+		int[] distanceWeights = instance.getDistanceWeights();
+		 
+		penalty = 0;
+		
+		for(int i = 0; i < E; ++i)
+			for(int c = conflictIndex[i]; c < conflictIndex[i + 1]; ++c) {
+				int j = conflictingExams[c];
 				
-				/* If exams are scheduled less than K timeslots apart, they do not 
-				 * generate any fee at all */
-				if(distance <= K)
-					neighborFitnessValue += Math.pow(2, K - distance) * N[movingExam][otherExam] / S;
+				// Exams more than K timeslots apart have a null weight
+				if(j > i)
+					penalty += distanceWeights[getDistance(i, j)] * conflictWeights[c];
 			}
+		
+		fitness = toFitness(penalty);
+	}
+	
+	/**
+	 * @param penalty	objective function value not divided by the
+	 * 					number of students.
+	 * @return			the corresponding fitness value.
+	 */
+	private float toFitness(long penalty) {
+		return (float)((double)penalty / instance.getS());
+	}
+	
+	/**
+	 * Swaps are evaluated in O(degree) time, or in constant time in
+	 * delta matrix mode, without modifying the solution.
+	 */
+	@Override
+	public float evaluateSwap(int exam1, int exam2) {
+		int timeslot1 = schedule[exam1];
+		int timeslot2 = schedule[exam2];
+		
+		if(timeslot1 == timeslot2)
+			return INFEASIBLE_MOVE;
+		
+		if(examConflicts == null)
+			initializeConflictsTable();
+		
+		/**
+		 * Each exam must be the only one in conflict with the other
+		 * exam in its new timeslot, if the two are in conflict.
+		 */
+		int conflictSlot = instance.getConflictSlot(exam1, exam2);
+		int studentsInBoth = (conflictSlot >= 0) ? instance.getConflictWeights()[conflictSlot] : 0;
+		int sharedConflicts = (studentsInBoth > 0) ? 1 : 0;
+		if(	examConflicts[exam1][timeslot2] != sharedConflicts ||
+			examConflicts[exam2][timeslot1] != sharedConflicts
+		)
+			return INFEASIBLE_MOVE;
+		
+		/**
+		 * Both relocation deltas assume the other exam stays where it is,
+		 * so each one removes the penalty of the pair itself. Their
+		 * distance does not change, though.
+		 */
+		long deltaPenalty =
+			getDeltaPenalty(exam1, timeslot2) +
+			getDeltaPenalty(exam2, timeslot1) +
+			2 * instance.getDistanceWeight(Math.abs(timeslot1 - timeslot2)) * studentsInBoth;
+		
+		return toFitness(penalty + deltaPenalty);
+	}
+	
+	/**
+	 * Kempe chains are evaluated in O(sum of the chain exams degrees)
+	 * time, or in O(chain size) time in delta matrix mode, without
+	 * modifying the solution: pairs of chain exams keep their distance,
+	 * so only conflicts with exams outside the chain change the penalty.
+	 */
+	@Override
+	public float evaluateKempeChain(KempeChain chain) {
+		if(examPenalties != null) {
+			long deltaPenalty = 0;
+			
+			for(int i = 0; i < chain.size(); ++i) {
+				int exam = chain.getExam(i);
+				deltaPenalty += examPenalties[exam][chain.getNewTimeslot(i)] - examPenalties[exam][schedule[exam]];
+			}
+			
+			/**
+			 * Each delta row assumes the other chain exams stay where they are,
+			 * removing the penalty of every conflicting pair inside the chain
+			 * once for each of its exams.
+			 */
+			deltaPenalty +=
+				instance.getDistanceWeight(Math.abs(chain.getTimeslot1() - chain.getTimeslot2())) *
+				chain.getInternalConflictWeight();
+			
+			return toFitness(penalty + deltaPenalty);
 		}
 		
-		// Removing old penalties
-		for(int otherExam = 0; otherExam < E; ++otherExam)
-			if(	// Avoids confronting the movingExam with itself
-				otherExam != movingExam &&
-				
-				// If there are students enrolled in both exams (conflicting exams)
-				N[movingExam][otherExam] > 0 &&
-				
-				/* If exams are scheduled less than K timeslots apart, they do not 
-				 * generate any fee at all */
-				distanceMatrix[movingExam][otherExam] <= K
-			) {
-				if(distanceMatrix[movingExam][otherExam] == 0)
-					throw new AssertionError("Previous solution is infeasible");
+		int[] conflictIndex = instance.getConflictIndex();
+		int[] conflictingExams = instance.getConflictingExams();
+		int[] conflictWeights = instance.getConflictWeights();
+		int[] distanceWeights = instance.getDistanceWeights();
+		
+		long deltaPenalty = 0;
+		
+		for(int i = 0; i < chain.size(); ++i) {
+			int exam = chain.getExam(i);
+			int oldTimeslot = schedule[exam];
+			int newTimeslot = chain.getNewTimeslot(i);
+			
+			for(int c = conflictIndex[exam]; c < conflictIndex[exam + 1]; ++c) {
+				int otherExam = conflictingExams[c];
 				
-				neighborFitnessValue -= Math.pow(2, K - distanceMatrix[movingExam][otherExam]) * N[movingExam][otherExam] / S;
+				if(!chain.contains(otherExam))
+					deltaPenalty += (
+						distanceWeights[Math.abs(newTimeslot - schedule[otherExam])] -
+						distanceWeights[Math.abs(oldTimeslot - schedule[otherExam])]
+					) * conflictWeights[c];
 			}
+		}
 		
-		return new Neighbor(movingExam, newTimeslot, neighborFitnessValue);
+		return toFitness(penalty + deltaPenalty);
+	}
+	
+	@Override
+	public float evaluateMove(int movingExam, int newTimeslot) {
+		// Infeasible moves are rejected before any penalty computation
+		if(!isFeasibleMove(movingExam, newTimeslot))
+			return INFEASIBLE_MOVE;
+		
+		return toFitness(penalty + getDeltaPenalty(movingExam, newTimeslot));
+	}
+	
+	/**
+	 * Computes how much the penalty (not divided by the number of
+	 * students) would change by moving an exam to another timeslot.
+	 * @param movingExam	exam to be rescheduled.
+	 * @param newTimeslot	timeslot in which it would end.
+	 * @return				the penalty variation.
+	 */
+	private int getDeltaPenalty(int movingExam, int newTimeslot) {
+		// Used when removing old penalties
+		int oldTimeslot = schedule[movingExam];
+		
+		// Delta matrix mode: constant time evaluation
+		if(examPenalties != null)
+			return examPenalties[movingExam][newTimeslot] - examPenalties[movingExam][oldTimeslot];
+		
+		// This function's result
+		int deltaPenalty = 0;
+		
+		// Instance variables
+		int[] conflictIndex = instance.getConflictIndex();
+		int[] conflictingExams = instance.getConflictingExams();
+		int[] conflictWeights = instance.getConflictWeights();
+		int[] distanceWeights = instance.getDistanceWeights();
+		
+		// Only exams having students enrolled in both exams (conflicting exams) are visited
+		for(int c = conflictIndex[movingExam]; c < conflictIndex[movingExam + 1]; ++c) {
+			int otherExam = conflictingExams[c];
+			
+			/* Adding new penalties and removing old ones: exams scheduled more
+			 * than K timeslots apart do not generate any fee at all */
+			deltaPenalty += (
+				distanceWeights[Math.abs(newTimeslot - schedule[otherExam])] -
+				distanceWeights[Math.abs(oldTimeslot - schedule[otherExam])]
+			) * conflictWeights[c];
+		}
+		
+		return deltaPenalty;
 	}
 	
 	/**
@@ -205,7 +500,7 @@ public class OptimizationSolution extends Solution {
 	 * 			between 1 and 5 timeslots apart	
 	 */
 	public boolean arePenalized(int i, int j) {
-		if(distanceMatrix[i][j] > 0 && distanceMatrix[i][j] <= instance.getK() && instance.getN()[i][j] > 0)
+		if(instance.getDistanceWeight(getDistance(i, j)) > 0 && instance.getConflictSlot(i, j) >= 0)
 			return true;
 		
 		return false;
@@ -229,19 +524,32 @@ public class OptimizationSolution extends Solution {
 	 * Returns the distance in terms of timeslots between
 	 * exams i and j according to the solution that this
 	 * object represents.
+	 * Distances are derived on demand from the schedule, so
+	 * that moves do not have to maintain an E x E matrix.
 	 * @param i	first exam index.
 	 * @param j	second exam index.
 	 * @return	distance between the two exams i and j
 	 */
 	public int getDistance(int i, int j) {
-		return distanceMatrix[i][j];
+		return Math.abs(schedule[i] - schedule[j]);
 	}
 	
 	public ArrayList<ExamPair> getConflictCoefficients() {
 		return penalizingPairs;
 	}
 
+	/**
+	 * @return	the exam pair having the highest conflict coefficient, or
+	 * 			an invalid exam pair if this solution has no penalties.
+	 */
 	public ExamPair getMostPenalizingPair() {
-		return mostPenalizingPair;
+		// Discarding pairs that are no longer penalizing
+		while(!pairsRanking.isEmpty() && !isCurrentPair(pairsRanking.peek()))
+			pairsRanking.poll();
+		
+		if(pairsRanking.isEmpty())
+			return new ExamPair(-1, -2, -1);
+		
+		return pairsRanking.peek();
 	}
 }
@@ -1,5 +1,6 @@
 package it.polito.oma.etp.solver.optimization;
 
+import java.util.ArrayList;
 import java.util.Collections;
 
 import it.polito.oma.etp.reader.InstanceData;
@@ -9,6 +10,12 @@ import it.polito.oma.etp.solver.TabuSearch;
 import it.polito.oma.etp.solver.initialization.InitializationSolution;
 
 public class TabuOptimization extends TabuSearch {
+	/**
+	 * Penalizing pairs of the current solution sorted by decreasing
+	 * conflict coefficient, computed only when needed by getNextPair().
+	 */
+	private ArrayList<ExamPair> sortedPenalizingPairs;
+	
 	public TabuOptimization(InstanceData instance, 
 							InitializationSolution initialSolution, 
 							TabuSettings settings
@@ -18,6 +25,10 @@ public class TabuOptimization extends TabuSearch {
 		// Initially, the current solution is the initial one
 		currentSolution = new OptimizationSolution(initialSolution);
 		
+		// Constant time neighbor evaluation, if requested
+		if(settings.deltaMatrix)
+			((OptimizationSolution)currentSolution).initializeDeltaMatrix();
+		
 		// By now this is our best solution
 		bestSolution = new OptimizationSolution(initialSolution);
 	}
@@ -35,12 +46,15 @@ public class TabuOptimization extends TabuSearch {
 		/**
 		 * If the most penalizing exam has an empty valid neighborhood,
 		 * the other exam pairs should be sorted according to their
-		 * fitness value just once.
+		 * fitness value just once. A copy is sorted, since the current
+		 * solution keeps its exam pairs indexed by position.
 		 */
-		if(nextPairIndex == 1)
-			Collections.sort(currentSolution.getPenalizingPairs());
+		if(nextPairIndex == 1) {
+			sortedPenalizingPairs = new ArrayList<ExamPair>(currentSolution.getPenalizingPairs());
+			Collections.sort(sortedPenalizingPairs);
+		}
 		
-		return currentSolution.getPenalizingPairs().get(nextPairIndex);
+		return sortedPenalizingPairs.get(nextPairIndex);
 	}
 
 	@Override
@@ -48,6 +62,7 @@ public class TabuOptimization extends TabuSearch {
 		if(currentSolution.getFitness() < bestSolution.getFitness()) {
 			bestSolution = new OptimizationSolution((OptimizationSolution)currentSolution);
 			bestSolutionIteration = iteration;
+			publishBestSolution();
 		}
 	}
 }
\ No newline at end of file
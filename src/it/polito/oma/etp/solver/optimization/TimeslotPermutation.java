@@ -0,0 +1,200 @@
+package it.polito.oma.etp.solver.optimization;
+
+import it.polito.oma.etp.reader.InstanceData;
+import it.polito.oma.etp.solver.Solution;
+
+/**
+ * Slot-level optimizer: the penalty only depends on the distances between
+ * the timeslots of conflicting exams, so whole timeslots can be reordered
+ * without affecting feasibility.
+ * Exams are aggregated once into a Tmax x Tmax interaction matrix, then
+ * timeslot orders are searched by a local search over swaps of two
+ * timeslots and moves of blocks of consecutive timeslots (or-opt).
+ * Each order is evaluated in O(Tmax * K) time, whatever the number of
+ * exams.
+ */
+public class TimeslotPermutation {
+	/**
+	 * Longest block of consecutive timeslots moved by or-opt moves.
+	 */
+	private static final int MAX_BLOCK_LENGTH = 3;
+	
+	private final InstanceData instance;
+	
+	/**
+	 * Solution whose timeslots are reordered.
+	 */
+	private final Solution solution;
+	
+	/**
+	 * Element [a][b] contains the number of students enrolled in
+	 * conflicting exams scheduled in timeslots a and b, summed over
+	 * all such exam pairs. The matrix is symmetric.
+	 */
+	private final long[][] slotInteractions;
+	
+	/**
+	 * Current timeslot order: order[p] is the timeslot placed
+	 * in the p-th position, and its penalty.
+	 */
+	private int[] order;
+	private long penalty;
+	
+	/**
+	 * Builds the interaction matrix of the given solution, which must
+	 * be feasible and is not modified.
+	 * @param solution		solution whose timeslots are reordered.
+	 */
+	public TimeslotPermutation(Solution solution) {
+		this.solution = solution;
+		instance = solution.getInstance();
+		
+		int E = instance.getE();
+		int Tmax = instance.getTmax();
+		int[] conflictIndex = instance.getConflictIndex();
+		int[] conflictingExams = instance.getConflictingExams();
+		int[] conflictWeights = instance.getConflictWeights();
+		
+		// Each conflicting exam pair is visited once for each of its exams
+		slotInteractions = new long[Tmax][Tmax];
+		for(int exam = 0; exam < E; ++exam) {
+			int timeslot = solution.getTimeslot(exam);
+			
+			for(int c = conflictIndex[exam]; c < conflictIndex[exam + 1]; ++c)
+				slotInteractions[timeslot][solution.getTimeslot(conflictingExams[c])] += conflictWeights[c];
+		}
+		
+		order = new int[Tmax];
+		for(int p = 0; p < Tmax; ++p)
+			order[p] = p;
+		penalty = getPenalty(order);
+	}
+	
+	/**
+	 * Reorders the timeslots until no swap nor or-opt move improves
+	 * the penalty, taking the first improving move found each time.
+	 * @return	true if a better order has been found.
+	 */
+	public boolean optimize() {
+		long initialPenalty = penalty;
+		int Tmax = order.length;
+		int[] candidate = new int[Tmax];
+		
+		boolean improved = true;
+		while(improved) {
+			improved = false;
+			
+			// Swapping the timeslots in positions p and q
+			for(int p = 0; p < Tmax - 1; ++p)
+				for(int q = p + 1; q < Tmax; ++q) {
+					System.arraycopy(order, 0, candidate, 0, Tmax);
+					candidate[p] = order[q];
+					candidate[q] = order[p];
+					
+					if(accept(candidate)) {
+						candidate = new int[Tmax];
+						improved = true;
+					}
+				}
+			
+			// Moving the block starting in position p, so that it starts in position q
+			for(int length = 1; length <= MAX_BLOCK_LENGTH; ++length)
+				for(int p = 0; p + length <= Tmax; ++p)
+					for(int q = 0; q + length <= Tmax; ++q) {
+						if(q == p)
+							continue;
+						
+						moveBlock(order, p, length, q, candidate);
+						
+						if(accept(candidate)) {
+							candidate = new int[Tmax];
+							improved = true;
+						}
+					}
+		}
+		
+		/*TODO debug*/ //System.out.println("Timeslot permutation: penalty from " + initialPenalty + " to " + penalty);
+		
+		return penalty < initialPenalty;
+	}
+	
+	/**
+	 * @return	a copy of the solution schedule, having its timeslots
+	 * 			placed in the best order found.
+	 */
+	public int[] getSchedule() {
+		int Tmax = order.length;
+		
+		// position[t] is the new position of timeslot t
+		int[] position = new int[Tmax];
+		for(int p = 0; p < Tmax; ++p)
+			position[order[p]] = p;
+		
+		int[] schedule = solution.getSchedule();
+		for(int exam = 0; exam < schedule.length; ++exam)
+			schedule[exam] = position[schedule[exam]];
+		
+		return schedule;
+	}
+	
+	/**
+	 * Makes the candidate order the current one if it has a lower penalty.
+	 * @param candidate		timeslot order to be evaluated.
+	 * @return				true if the candidate order has been accepted, in
+	 * 						which case it must not be modified anymore.
+	 */
+	private boolean accept(int[] candidate) {
+		long candidatePenalty = getPenalty(candidate);
+		
+		if(candidatePenalty >= penalty)
+			return false;
+		
+		order = candidate;
+		penalty = candidatePenalty;
+		return true;
+	}
+	
+	/**
+	 * Copies a timeslot order moving a block of consecutive positions.
+	 * @param order		timeslot order to be copied.
+	 * @param from		first position of the block.
+	 * @param length	number of timeslots in the block.
+	 * @param to		position in which the block starts in the copy.
+	 * @param result	receives the copy.
+	 */
+	private static void moveBlock(int[] order, int from, int length, int to, int[] result) {
+		int p = 0;
+		
+		// Timeslots outside the block keep their relative order
+		for(int i = 0; i < order.length; ++i) {
+			if(p == to)
+				p += length;
+			
+			if(i < from || i >= from + length)
+				result[p++] = order[i];
+		}
+		
+		System.arraycopy(order, from, result, to, length);
+	}
+	
+	/**
+	 * Computes the penalty, not divided by the number of students, of a
+	 * timeslot order: only timeslots at most K positions apart interact.
+	 * @param order		timeslot order to be evaluated.
+	 * @return			the penalty the solution would have.
+	 */
+	private long getPenalty(int[] order) {
+		int K = instance.getK();
+		int[] distanceWeights = instance.getDistanceWeights();
+		long penalty = 0;
+		
+		for(int p = 0; p < order.length; ++p) {
+			long[] interactions = slotInteractions[order[p]];
+			
+			for(int d = 1; d <= K && p + d < order.length; ++d)
+				penalty += distanceWeights[d] * interactions[order[p + d]];
+		}
+		
+		return penalty;
+	}
+}
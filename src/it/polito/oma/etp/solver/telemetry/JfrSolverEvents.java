@@ -0,0 +1,122 @@
+package it.polito.oma.etp.solver.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event types of the solver, loaded only by SolverEvents
+ * when the jdk.jfr API is available.
+ */
+class JfrSolverEvents {
+	static void tabuSearchProgress(	String algorithm,
+									int iterations,
+									long neighborsEvaluated,
+									long tabuHits,
+									long aspirations,
+									int tabuListSize,
+									float currentFitness,
+									float bestFitness
+	) {
+		TabuSearchProgress event = new TabuSearchProgress();
+		
+		if(!event.isEnabled())
+			return;
+		
+		event.algorithm = algorithm;
+		event.iterations = iterations;
+		event.neighborsEvaluated = neighborsEvaluated;
+		event.tabuHits = tabuHits;
+		event.aspirations = aspirations;
+		event.tabuListSize = tabuListSize;
+		event.currentFitness = currentFitness;
+		event.bestFitness = bestFitness;
+		event.commit();
+	}
+	
+	static void generationCompleted(int generation, float bestFitness, float worstFitness, double mutationProbability) {
+		GenerationCompleted event = new GenerationCompleted();
+		
+		if(!event.isEnabled())
+			return;
+		
+		event.generation = generation;
+		event.bestFitness = bestFitness;
+		event.worstFitness = worstFitness;
+		event.mutationProbability = mutationProbability;
+		event.commit();
+	}
+	
+	static void bestSolutionFound(String algorithm, float fitness) {
+		BestSolutionFound event = new BestSolutionFound();
+		
+		if(!event.isEnabled())
+			return;
+		
+		event.algorithm = algorithm;
+		event.fitness = fitness;
+		event.commit();
+	}
+	
+	@Name("it.polito.oma.etp.TabuSearchProgress")
+	@Label("Tabu Search Progress")
+	@Description("Batch of Tabu Search iterations performed by a walker")
+	@Category("Timetabling")
+	static class TabuSearchProgress extends Event {
+		@Label("Algorithm")
+		String algorithm;
+		
+		@Label("Iterations")
+		int iterations;
+		
+		@Label("Neighbors Evaluated")
+		long neighborsEvaluated;
+		
+		@Label("Tabu Hits")
+		long tabuHits;
+		
+		@Label("Aspirations")
+		long aspirations;
+		
+		@Label("Tabu List Size")
+		int tabuListSize;
+		
+		@Label("Current Fitness")
+		float currentFitness;
+		
+		@Label("Best Fitness")
+		float bestFitness;
+	}
+	
+	@Name("it.polito.oma.etp.GenerationCompleted")
+	@Label("Generation Completed")
+	@Description("Genetic Algorithm generation")
+	@Category("Timetabling")
+	static class GenerationCompleted extends Event {
+		@Label("Generation")
+		int generation;
+		
+		@Label("Best Fitness")
+		float bestFitness;
+		
+		@Label("Worst Fitness")
+		float worstFitness;
+		
+		@Label("Mutation Probability")
+		double mutationProbability;
+	}
+	
+	@Name("it.polito.oma.etp.BestSolutionFound")
+	@Label("Best Solution Found")
+	@Description("Solution improving all the ones found so far by the same job")
+	@Category("Timetabling")
+	static class BestSolutionFound extends Event {
+		@Label("Algorithm")
+		String algorithm;
+		
+		@Label("Fitness")
+		float fitness;
+	}
+}
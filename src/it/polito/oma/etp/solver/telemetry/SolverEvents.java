@@ -0,0 +1,51 @@
+package it.polito.oma.etp.solver.telemetry;
+
+/**
+ * Emits solver progress as JFR events when the running JVM includes
+ * the jdk.jfr module, doing nothing otherwise (e.g. on runtime images
+ * built without it).
+ * Events are recorded only while a flight recording including them
+ * is running, e.g. with -XX:StartFlightRecording.
+ */
+class SolverEvents {
+	/**
+	 * True if the jdk.jfr API is available: JfrSolverEvents must not
+	 * be loaded otherwise.
+	 */
+	private static final boolean JFR_AVAILABLE = isJfrAvailable();
+	
+	private static boolean isJfrAvailable() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			return true;
+		} catch(ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+	
+	static void tabuSearchProgress(	String algorithm,
+									int iterations,
+									long neighborsEvaluated,
+									long tabuHits,
+									long aspirations,
+									int tabuListSize,
+									float currentFitness,
+									float bestFitness
+	) {
+		if(JFR_AVAILABLE)
+			JfrSolverEvents.tabuSearchProgress(
+				algorithm, iterations, neighborsEvaluated, tabuHits, aspirations,
+				tabuListSize, currentFitness, bestFitness
+			);
+	}
+	
+	static void generationCompleted(int generation, float bestFitness, float worstFitness, double mutationProbability) {
+		if(JFR_AVAILABLE)
+			JfrSolverEvents.generationCompleted(generation, bestFitness, worstFitness, mutationProbability);
+	}
+	
+	static void bestSolutionFound(String algorithm, float fitness) {
+		if(JFR_AVAILABLE)
+			JfrSolverEvents.bestSolutionFound(algorithm, fitness);
+	}
+}
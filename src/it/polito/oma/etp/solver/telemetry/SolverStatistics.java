@@ -0,0 +1,227 @@
+package it.polito.oma.etp.solver.telemetry;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Progress counters of a solving job, shared by all its algorithms.
+ * Algorithms accumulate their counters locally and report them in
+ * batches, so that recording costs nothing in their inner loops.
+ * Every report is also emitted as a JFR event when a flight
+ * recording is running.
+ */
+public class SolverStatistics implements SolverStatisticsMBean {
+	/**
+	 * How many iterations algorithms perform before reporting
+	 * their counters; it must be a power of two.
+	 */
+	public static final int REPORTING_PERIOD = 256;
+	
+	private final long startTime = System.nanoTime();
+	
+	private final LongAdder iterations = new LongAdder();
+	private final LongAdder neighborsEvaluated = new LongAdder();
+	private final LongAdder tabuHits = new LongAdder();
+	private final LongAdder aspirations = new LongAdder();
+	private final LongAdder generations = new LongAdder();
+	private volatile int tabuListSize;
+	
+	/**
+	 * Best fitness trajectory, guarded by this object.
+	 * Improvements are rare, so a lock is cheap enough.
+	 */
+	private float bestFitness = Float.POSITIVE_INFINITY;
+	private float[] trajectory = new float[16];
+	private long[] trajectoryTimes = new long[16];
+	private int trajectoryLength;
+	
+	/**
+	 * Name this object is registered with, null if it is not.
+	 */
+	private ObjectName objectName;
+	
+	/**
+	 * Reports a batch of Tabu Search iterations.
+	 * @param algorithm				name of the reporting algorithm.
+	 * @param iterations			iterations performed since the last report.
+	 * @param neighborsEvaluated	feasible neighbors evaluated in them.
+	 * @param tabuHits				neighbors found in the Tabu List.
+	 * @param aspirations			tabu moves satisfying the aspiration criterion.
+	 * @param tabuListSize			current Tabu List size.
+	 * @param currentFitness		current solution fitness.
+	 * @param bestFitness			best solution fitness of the reporting algorithm.
+	 */
+	public void tabuSearchProgress(	String algorithm,
+									int iterations,
+									long neighborsEvaluated,
+									long tabuHits,
+									long aspirations,
+									int tabuListSize,
+									float currentFitness,
+									float bestFitness
+	) {
+		this.iterations.add(iterations);
+		this.neighborsEvaluated.add(neighborsEvaluated);
+		this.tabuHits.add(tabuHits);
+		this.aspirations.add(aspirations);
+		this.tabuListSize = tabuListSize;
+		
+		SolverEvents.tabuSearchProgress(
+			algorithm, iterations, neighborsEvaluated, tabuHits, aspirations,
+			tabuListSize, currentFitness, bestFitness
+		);
+	}
+	
+	/**
+	 * Reports a Genetic Algorithm generation.
+	 * @param generation		generation number.
+	 * @param bestFitness		best chromosome fitness.
+	 * @param worstFitness		worst chromosome fitness.
+	 * @param mutationProbability	current mutation probability.
+	 */
+	public void generationCompleted(int generation, float bestFitness, float worstFitness, double mutationProbability) {
+		generations.increment();
+		SolverEvents.generationCompleted(generation, bestFitness, worstFitness, mutationProbability);
+	}
+	
+	/**
+	 * Reports a solution found by an algorithm, which is recorded in the
+	 * trajectory only if it improves all the ones reported so far.
+	 * @param algorithm		name of the reporting algorithm.
+	 * @param fitness		fitness of the solution.
+	 */
+	public void bestSolutionFound(String algorithm, float fitness) {
+		synchronized(this) {
+			if(fitness >= bestFitness)
+				return;
+			
+			if(trajectoryLength == trajectory.length) {
+				trajectory = Arrays.copyOf(trajectory, trajectoryLength * 2);
+				trajectoryTimes = Arrays.copyOf(trajectoryTimes, trajectoryLength * 2);
+			}
+			
+			bestFitness = fitness;
+			trajectory[trajectoryLength] = fitness;
+			trajectoryTimes[trajectoryLength] = getElapsedMillis();
+			++trajectoryLength;
+		}
+		
+		SolverEvents.bestSolutionFound(algorithm, fitness);
+	}
+	
+	/**
+	 * Restarts the best fitness trajectory once feasible solutions have
+	 * been found, since the optimization problem fitness cannot be
+	 * compared with the initialization problem one.
+	 */
+	public synchronized void optimizationStarted() {
+		bestFitness = Float.POSITIVE_INFINITY;
+		trajectoryLength = 0;
+	}
+	
+	/**
+	 * Registers this object in the platform MBean server, so that it can
+	 * be monitored through JMX until unregister() is called.
+	 * Registration failures are ignored, since statistics are not needed
+	 * for solving.
+	 * @param name	job name, e.g. the instance name.
+	 */
+	public void register(String name) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName(
+				"it.polito.oma.etp:type=SolverStatistics,name=" + ObjectName.quote(name) +
+				",id=" + Integer.toHexString(System.identityHashCode(this))
+			);
+			
+			server.registerMBean(this, objectName);
+			this.objectName = objectName;
+		} catch(JMException | SecurityException e) {
+			// Monitoring not available
+		}
+	}
+	
+	/**
+	 * Removes this object from the platform MBean server, if registered.
+	 */
+	public void unregister() {
+		if(objectName == null)
+			return;
+		
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		} catch(JMException | SecurityException e) {
+			// Already unregistered
+		}
+		
+		objectName = null;
+	}
+	
+	private long getElapsedMillis() {
+		return (System.nanoTime() - startTime) / 1000000;
+	}
+	
+	@Override
+	public long getIterations() {
+		return iterations.sum();
+	}
+	
+	@Override
+	public double getIterationsPerSecond() {
+		long elapsedTime = System.nanoTime() - startTime;
+		
+		return (elapsedTime == 0) ? 0 : iterations.sum() * 1e9 / elapsedTime;
+	}
+	
+	@Override
+	public long getNeighborsEvaluated() {
+		return neighborsEvaluated.sum();
+	}
+	
+	@Override
+	public double getAverageNeighborhoodSize() {
+		long iterations = this.iterations.sum();
+		
+		return (iterations == 0) ? 0 : (double)neighborsEvaluated.sum() / iterations;
+	}
+	
+	@Override
+	public long getTabuHits() {
+		return tabuHits.sum();
+	}
+	
+	@Override
+	public long getAspirations() {
+		return aspirations.sum();
+	}
+	
+	@Override
+	public int getTabuListSize() {
+		return tabuListSize;
+	}
+	
+	@Override
+	public long getGenerations() {
+		return generations.sum();
+	}
+	
+	@Override
+	public synchronized float getBestFitness() {
+		return bestFitness;
+	}
+	
+	@Override
+	public synchronized float[] getBestFitnessTrajectory() {
+		return Arrays.copyOf(trajectory, trajectoryLength);
+	}
+	
+	@Override
+	public synchronized long[] getBestFitnessTimes() {
+		return Arrays.copyOf(trajectoryTimes, trajectoryLength);
+	}
+}
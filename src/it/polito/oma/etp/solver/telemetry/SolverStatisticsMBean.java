@@ -0,0 +1,66 @@
+package it.polito.oma.etp.solver.telemetry;
+
+/**
+ * Management interface of SolverStatistics, exposing the progress
+ * of a solving job through JMX.
+ */
+public interface SolverStatisticsMBean {
+	/**
+	 * @return	Tabu Search iterations performed so far, by all walkers.
+	 */
+	long getIterations();
+	
+	/**
+	 * @return	Tabu Search iterations per second since the job started.
+	 */
+	double getIterationsPerSecond();
+	
+	/**
+	 * @return	feasible neighbors evaluated so far.
+	 */
+	long getNeighborsEvaluated();
+	
+	/**
+	 * @return	average number of feasible neighbors per iteration.
+	 */
+	double getAverageNeighborhoodSize();
+	
+	/**
+	 * @return	neighbors found in the Tabu List while selecting moves.
+	 */
+	long getTabuHits();
+	
+	/**
+	 * @return	tabu moves performed since they satisfied the
+	 * 			aspiration criterion.
+	 */
+	long getAspirations();
+	
+	/**
+	 * @return	Tabu List size of the last walker reporting its progress.
+	 */
+	int getTabuListSize();
+	
+	/**
+	 * @return	Genetic Algorithm generations performed so far.
+	 */
+	long getGenerations();
+	
+	/**
+	 * @return	fitness of the best solution found so far, or
+	 * 			Float.POSITIVE_INFINITY if none.
+	 */
+	float getBestFitness();
+	
+	/**
+	 * @return	fitness of every best solution found so far, from
+	 * 			the oldest to the newest one.
+	 */
+	float[] getBestFitnessTrajectory();
+	
+	/**
+	 * @return	milliseconds elapsed since the job started when each
+	 * 			getBestFitnessTrajectory() element was found.
+	 */
+	long[] getBestFitnessTimes();
+}
@@ -0,0 +1,129 @@
+package it.polito.oma.etp.solver;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import it.polito.oma.etp.reader.InputReader;
+import it.polito.oma.etp.reader.InstanceData;
+import it.polito.oma.etp.solver.initialization.InitializationSolution;
+import it.polito.oma.etp.solver.initialization.TabuInitialization;
+import it.polito.oma.etp.solver.optimization.TabuOptimization;
+
+/**
+ * Parallel neighborhood evaluation must choose the same moves as the
+ * sequential one, starting from the same feasible solution.
+ */
+public class TabuSearchTest {
+	private static final long SEED = 42;
+	private static final int ITERATIONS = 200;
+
+	private static InstanceData instance;
+	private static InitializationSolution initialSolution;
+
+	@BeforeAll
+	public static void findInitialSolution() {
+		instance = InputReader.getData("res/instance01");
+
+		TabuSettings initializationSettings = new TabuSettings(
+			new Settings(false, 1, false, false, SEED),
+			1,		// neighborhoodGeneratingPairsPercentage
+			false,	// considerAllTimeslots
+			false,	// deltaMatrix
+			1,		// neighborhoodEvaluationThreads
+			true,	// streamingNeighborSelection
+			false,	// swapMoves
+			0,		// kempeChainMaxSize
+			20,		// tabuListInitialSize
+			true,	// dynamicTabuList
+			2,		// worseningCriterion
+			45,		// tabuListMaxSize
+			9000,	// maxNonImprovingIterationsAllowed
+			3,		// tabuListIncrementSize
+			50,		// movingAveragePeriod
+			1,		// tabuListIncrementTimeInterval
+			1		// numberOfThreads
+		);
+
+		initialSolution = (InitializationSolution)new TabuInitialization(
+			instance, initializationSettings, new SplittableRandom(SEED)
+		).solve(CancellationToken.withoutDeadline());
+	}
+
+	@Test
+	public void parallelSelectionMatchesSequential() {
+		compareWithSequential(true);
+	}
+
+	@Test
+	public void parallelNeighborhoodMatchesSequential() {
+		compareWithSequential(false);
+	}
+
+	/**
+	 * Moves a sequential and a parallel Tabu Search side by side,
+	 * checking that they choose the same neighbor at every iteration.
+	 * @param streamingNeighborSelection	collector being compared.
+	 */
+	private void compareWithSequential(boolean streamingNeighborSelection) {
+		TabuSearch sequential = newTabuOptimization(1, streamingNeighborSelection);
+		TabuSearch parallel = newTabuOptimization(4, streamingNeighborSelection);
+
+		parallel.startNeighborhoodEvaluation();
+		try {
+			for(int i = 0; i < ITERATIONS; ++i) {
+				Neighbor sequentialNeighbor = selectNeighbor(sequential, streamingNeighborSelection);
+				Neighbor parallelNeighbor = selectNeighbor(parallel, streamingNeighborSelection);
+
+				assertNotNull(sequentialNeighbor);
+				assertEquals(sequentialNeighbor, parallelNeighbor, "Iteration " + i);
+				assertEquals(sequentialNeighbor.getFitness(), parallelNeighbor.getFitness(), "Iteration " + i);
+
+				sequential.move(sequentialNeighbor);
+				parallel.move(parallelNeighbor);
+			}
+		} finally {
+			parallel.stopNeighborhoodEvaluation();
+		}
+
+		assertArrayEquals(sequential.currentSolution.getSchedule(), parallel.currentSolution.getSchedule());
+	}
+
+	private static Neighbor selectNeighbor(TabuSearch tabuSearch, boolean streamingNeighborSelection) {
+		if(streamingNeighborSelection)
+			return tabuSearch.selectBestAdmissibleNeighbor(tabuSearch.currentSolution.getPenalizingPairs());
+
+		ArrayList<Neighbor> neighborhood = tabuSearch.getNeighborhood(tabuSearch.currentSolution.getPenalizingPairs());
+		return neighborhood.isEmpty() ? null : neighborhood.get(0);
+	}
+
+	private static TabuSearch newTabuOptimization(int neighborhoodEvaluationThreads, boolean streamingNeighborSelection) {
+		TabuSettings optimizationSettings = new TabuSettings(
+			new Settings(false, 1, false, false, SEED),
+			1,								// neighborhoodGeneratingPairsPercentage
+			true,							// considerAllTimeslots
+			true,							// deltaMatrix
+			neighborhoodEvaluationThreads,	// neighborhoodEvaluationThreads
+			streamingNeighborSelection,		// streamingNeighborSelection
+			true,							// swapMoves
+			16,								// kempeChainMaxSize
+			20,								// tabuListInitialSize
+			true,							// dynamicTabuList
+			1,								// worseningCriterion
+			45,								// tabuListMaxSize
+			9000,							// maxNonImprovingIterationsAllowed
+			7,								// tabuListIncrementSize
+			50,								// movingAveragePeriod
+			1,								// tabuListIncrementTimeInterval
+			1								// numberOfThreads
+		);
+
+		return new TabuOptimization(instance, initialSolution, optimizationSettings);
+	}
+}